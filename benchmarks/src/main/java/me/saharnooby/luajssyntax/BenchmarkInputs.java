@@ -0,0 +1,95 @@
+package me.saharnooby.luajssyntax;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds benchmark inputs from the LuaJS parts of the converter test cases.
+ * @author saharNooby
+ * @since 14:05 18.10.2026
+ */
+final class BenchmarkInputs {
+
+	/**
+	 * Test cases concatenated to build the medium input.
+	 */
+	private static final String[] TEST_CASES = {
+			"Locals", "Globals", "Compound", "Break", "Label", "Return", "If", "DoWhile", "For", "ForOptimized",
+			"ForIn", "ForOf", "Increment", "Parenthesis", "Literals", "Numbers", "Strings", "Tables", "Lists",
+			"FunctionLiteral", "ArrowFunctionLiteral", "Unary", "Power", "Math", "Concat", "Comparison", "Logic",
+			"Bitwise", "Priorities", "PrioritiesUnary", "PrioritiesBitwise", "ChainCalls", "Ternary", "OOP",
+			"Continue", "TryCatch", "Throw", "Require"
+	};
+
+	/**
+	 * Minimal length of the large input, in chars.
+	 */
+	private static final int LARGE_LENGTH = 4 * 1024 * 1024;
+
+	/**
+	 * @param size One of "small", "medium" or "large".
+	 * @return LuaJS source code of the requested size.
+	 */
+	static String get(String size) {
+		switch (size) {
+			case "small":
+				return loadTestCase("OOP");
+			case "medium":
+				return medium();
+			case "large":
+				String medium = medium();
+
+				StringBuilder builder = new StringBuilder(LARGE_LENGTH + medium.length());
+
+				while (builder.length() < LARGE_LENGTH) {
+					builder.append(medium);
+				}
+
+				return builder.toString();
+			default:
+				throw new IllegalArgumentException("Unknown input size " + size);
+		}
+	}
+
+	private static String medium() {
+		StringBuilder builder = new StringBuilder();
+
+		for (String testCase : TEST_CASES) {
+			builder.append(loadTestCase(testCase)).append('\n');
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the LuaJS part of a test case, that is everything before the "===" separator line.
+	 */
+	private static String loadTestCase(String name) {
+		String text;
+
+		try (InputStream in = BenchmarkInputs.class.getResourceAsStream(name + ".txt")) {
+			if (in == null) {
+				throw new IllegalArgumentException("Test case " + name + " not found");
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[8192];
+			int read;
+			while ((read = in.read(buf)) != -1) {
+				out.write(buf, 0, read);
+			}
+
+			text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		int separator = text.indexOf("\n===");
+
+		return separator == -1 ? text : text.substring(0, separator + 1);
+	}
+
+}
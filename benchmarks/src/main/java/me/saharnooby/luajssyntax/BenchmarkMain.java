@@ -0,0 +1,31 @@
+package me.saharnooby.luajssyntax;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, so allocation rate is always reported.
+ * Accepts the same arguments as {@link org.openjdk.jmh.Main}.
+ * @author saharNooby
+ * @since 14:05 18.10.2026
+ */
+public final class BenchmarkMain {
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+		if (commandLine.getIncludes().isEmpty()) {
+			options.include(PipelineBenchmark.class.getSimpleName()).include(StartupBenchmark.class.getSimpleName());
+		}
+
+		new Runner(options.addProfiler(GCProfiler.class).build()).run();
+	}
+
+}
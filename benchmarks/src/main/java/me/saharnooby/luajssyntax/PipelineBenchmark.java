@@ -0,0 +1,76 @@
+package me.saharnooby.luajssyntax;
+
+import me.saharnooby.luajssyntax.util.HashUtil;
+import me.saharnooby.luajssyntax.util.Printer;
+import org.antlr.v4.runtime.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the whole conversion and each of its phases separately.
+ * Each phase benchmark starts from the output of the previous phase, prepared once per trial.
+ * @author saharNooby
+ * @since 14:05 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+	@Param({"small", "medium", "large"})
+	public String size;
+
+	private String source;
+	private String sourceHash;
+	private List<? extends Token> tokens;
+	private LuaJSSyntaxParser.ProgramContext program;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.source = BenchmarkInputs.get(this.size);
+		this.sourceHash = HashUtil.md5(this.source);
+
+		CommonTokenStream stream = new CommonTokenStream(new LuaJSSyntaxLexer(CharStreams.fromString(this.source)));
+		stream.fill();
+		this.tokens = stream.getTokens();
+
+		this.program = parse();
+	}
+
+	@Benchmark
+	public String convert() {
+		return LuaJSToLua.convert(this.source);
+	}
+
+	@Benchmark
+	public int lex() {
+		CommonTokenStream stream = new CommonTokenStream(new LuaJSSyntaxLexer(CharStreams.fromString(this.source)));
+		stream.fill();
+		return stream.size();
+	}
+
+	@Benchmark
+	public LuaJSSyntaxParser.ProgramContext parse() {
+		return LuaJSToLua.parse(new CommonTokenStream(new ListTokenSource(this.tokens)));
+	}
+
+	@Benchmark
+	public StringBuilder print() {
+		StringBuilder builder = new StringBuilder();
+		Printer printer = new Printer(builder);
+		new LuaJSToLuaConverter(printer, () -> this.sourceHash.substring(0, 8)).print(this.program);
+		printer.flush();
+		return builder;
+	}
+
+	@Benchmark
+	public String md5() {
+		return HashUtil.md5(this.source);
+	}
+
+}
@@ -0,0 +1,33 @@
+package me.saharnooby.luajssyntax;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the first conversion of a small script in a fresh JVM, which includes loading and initialization of
+ * the lexer, the parser and the converter. This is what dominates time to first output of one-shot console runs.
+ * @author saharNooby
+ * @since 23:40 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+	private String source;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.source = BenchmarkInputs.get("small");
+	}
+
+	@Benchmark
+	public String firstConvert() {
+		return LuaJSToLua.convert(this.source);
+	}
+
+}
@@ -0,0 +1,45 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.Getter;
+
+/**
+ * Result of converting a single source in a batch.
+ * Either the output or the error is present, but not both.
+ * @author saharNooby
+ * @since 15:10 18.10.2026
+ */
+@Getter
+public final class BatchResult {
+
+	/**
+	 * Resulting Lua code, or null if the conversion has failed.
+	 * For file conversions this is null too, since the output is written to the destination file.
+	 */
+	private final String output;
+	/**
+	 * The exception that caused the conversion to fail, or null if it succeeded.
+	 * Usually it is an {@link me.saharnooby.luajssyntax.exception.InvalidSyntaxException} or an {@link java.io.IOException}.
+	 */
+	private final Exception error;
+
+	private BatchResult(String output, Exception error) {
+		this.output = output;
+		this.error = error;
+	}
+
+	/**
+	 * @return True if the conversion has succeeded.
+	 */
+	public boolean isSuccess() {
+		return this.error == null;
+	}
+
+	static BatchResult success(String output) {
+		return new BatchResult(output, null);
+	}
+
+	static BatchResult failure(Exception error) {
+		return new BatchResult(null, error);
+	}
+
+}
@@ -0,0 +1,666 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import org.antlr.v4.runtime.tree.RuleNode;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Evaluates expressions whose operands are literals, so they can be printed as a single literal.
+ * <p>
+ * Follows semantics of Lua 5.2 and keeps the distinction between integers and floats of Lua 5.3,
+ * so results are the same in both versions; bitwise operators follow semantics of the target version. Expressions whose results may differ between Lua implementations are not evaluated:
+ * results that are not finite (like division by zero), integers not exactly representable as doubles, integer negative zeros
+ * (like {@code 0 * -1}, which is a float {@code -0} in Lua 5.2 and an integer {@code 0} in Lua 5.3),
+ * modulo of floats, non-integer powers, concatenation of numbers and bitwise operations on non-integers.
+ * @author saharNooby
+ * @since 00:40 19.10.2026
+ */
+final class ConstantFolder extends LuaJSSyntaxBaseVisitor<ConstantFolder.Constant> {
+
+	/**
+	 * Max absolute value of integers that are exactly representable as doubles.
+	 */
+	private static final double MAX_EXACT_INTEGER = 9007199254740992.0;
+	/**
+	 * Max absolute value of arguments of bitwise operators, so bit and bit32 libraries convert them exactly.
+	 */
+	private static final double MAX_BITWISE_ARGUMENT = 2251799813685248.0;
+	/**
+	 * Max length of a folded string in bytes, so long literals are not duplicated into output many times.
+	 */
+	private static final int MAX_STRING_LENGTH = 1024;
+
+	private static final Constant NOT_CONSTANT = new Constant(null, false, 0, false, null);
+
+	private final Map<LuaJSSyntaxParser.ExpContext, Constant> results = new IdentityHashMap<>();
+
+	private final ConversionOptions.Target target;
+
+	ConstantFolder(@NonNull ConversionOptions.Target target) {
+		this.target = target;
+	}
+
+	/**
+	 * Returns the value of the expression, or null if it is not a constant.
+	 * Results are memoized, so evaluating every subexpression of a tree takes linear time.
+	 */
+	Constant evaluate(@NonNull LuaJSSyntaxParser.ExpContext ctx) {
+		Constant result = this.results.get(ctx);
+
+		if (result == null) {
+			result = ctx.accept(this);
+
+			this.results.put(ctx, result != null ? result : NOT_CONSTANT);
+		}
+
+		return result != NOT_CONSTANT ? result : null;
+	}
+
+	// region Literals
+
+	@Override
+	public Constant visitLiteral(LuaJSSyntaxParser.LiteralContext ctx) {
+		switch (ctx.getText()) {
+			case "true":
+				return Constant.bool(true);
+			case "false":
+				return Constant.bool(false);
+			default:
+				return Constant.NIL;
+		}
+	}
+
+	@Override
+	public Constant visitNumberLiteral(LuaJSSyntaxParser.NumberLiteralContext ctx) {
+		String text = ctx.getText();
+
+		switch (ctx.number().start.getType()) {
+			case LuaJSSyntaxLexer.INT:
+				return integer(text.length() <= 16 ? Long.parseLong(text) : Double.MAX_VALUE);
+			case LuaJSSyntaxLexer.HEX:
+				return integer(text.length() <= 15 ? Long.parseLong(text.substring(2), 16) : Double.MAX_VALUE);
+			case LuaJSSyntaxLexer.FLOAT:
+				return arithmetic(Double.parseDouble(text), false);
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	public Constant visitStringLiteral(LuaJSSyntaxParser.StringLiteralContext ctx) {
+		byte[] bytes = decodeString(ctx.getText());
+
+		return bytes != null ? Constant.string(bytes) : null;
+	}
+
+	@Override
+	public Constant visitParenthesisExpression(LuaJSSyntaxParser.ParenthesisExpressionContext ctx) {
+		return evaluate(ctx.exp());
+	}
+
+	// endregion
+
+	// region Operators
+
+	@Override
+	public Constant visitUnaryOperator(LuaJSSyntaxParser.UnaryOperatorContext ctx) {
+		Constant value = evaluate(ctx.exp());
+
+		if (value == null) {
+			return null;
+		}
+
+		switch (ctx.op.getText()) {
+			case "!":
+				return Constant.bool(!value.isTruthy());
+			case "-":
+				if (value.type != Constant.Type.NUMBER) {
+					return null;
+				}
+
+				return value.integer ? integer(-value.number) : Constant.number(-value.number, false);
+			case "#":
+				return value.type == Constant.Type.STRING ? integer(value.string.length) : null;
+			case "~":
+				return isBitwiseArgument(value) ? bitwise(~(long) value.number) : null;
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Returns whether the expression is a unary minus or length operator. In LuaJS they have higher priority than {@code **},
+	 * but the converter prints them as is, and Lua applies them after {@code ^}.
+	 */
+	static boolean isAppliedAfterPower(@NonNull LuaJSSyntaxParser.ExpContext exp) {
+		if (!(exp instanceof LuaJSSyntaxParser.UnaryOperatorContext)) {
+			return false;
+		}
+
+		String op = ((LuaJSSyntaxParser.UnaryOperatorContext) exp).op.getText();
+
+		return op.equals("-") || op.equals("#");
+	}
+
+	@Override
+	public Constant visitPowerOperator(LuaJSSyntaxParser.PowerOperatorContext ctx) {
+		// The converted code computes -(a ^ b) here, so it is left as is
+		if (isAppliedAfterPower(ctx.exp(0))) {
+			return null;
+		}
+
+		Constant left = number(ctx.exp(0));
+		Constant right = number(ctx.exp(1));
+
+		if (left == null || right == null) {
+			return null;
+		}
+
+		// Only exact powers, since pow implementations may differ in the last bit
+		if (!isIntegral(left.number) || !isIntegral(right.number) || right.number < 0 || right.number > 64) {
+			return null;
+		}
+
+		double result = Math.pow(left.number, right.number);
+
+		return Math.abs(result) < MAX_EXACT_INTEGER ? Constant.number(result, false) : null;
+	}
+
+	@Override
+	public Constant visitMulDivModOperator(LuaJSSyntaxParser.MulDivModOperatorContext ctx) {
+		Constant left = number(ctx.exp(0));
+		Constant right = number(ctx.exp(1));
+
+		if (left == null || right == null) {
+			return null;
+		}
+
+		boolean integer = left.integer && right.integer;
+
+		switch (ctx.op.getText()) {
+			case "*":
+				return arithmetic(left.number * right.number, integer);
+			case "/":
+				return arithmetic(left.number / right.number, false);
+			default:
+				if (!integer || right.number == 0) {
+					return null;
+				}
+
+				// Lua 5.2 computes modulo of doubles, and Lua 5.3 of integers, so results must match
+				double result = left.number - Math.floor(left.number / right.number) * right.number;
+
+				return result == Math.floorMod((long) left.number, (long) right.number) ? integer(result) : null;
+		}
+	}
+
+	@Override
+	public Constant visitAddSubOperator(LuaJSSyntaxParser.AddSubOperatorContext ctx) {
+		Constant left = number(ctx.exp(0));
+		Constant right = number(ctx.exp(1));
+
+		if (left == null || right == null) {
+			return null;
+		}
+
+		boolean integer = left.integer && right.integer;
+
+		return arithmetic(ctx.op.getText().equals("+") ? left.number + right.number : left.number - right.number, integer);
+	}
+
+	@Override
+	public Constant visitBitwiseShift(LuaJSSyntaxParser.BitwiseShiftContext ctx) {
+		Constant left = bitwiseArgument(ctx.exp(0));
+		Constant right = bitwiseArgument(ctx.exp(1));
+
+		if (left == null || right == null) {
+			return null;
+		}
+
+		boolean leftShift = ctx.op.getText().equals("<<");
+
+		long value = (long) left.number;
+		long shift = (long) right.number;
+
+		if (this.target == ConversionOptions.Target.LUA_51) {
+			// bit library uses only 5 lower bits of the displacement
+			int bits = (int) (shift & 31);
+
+			return bitwise(leftShift ? value << bits : (value & 0xFFFFFFFFL) >>> bits);
+		}
+
+		int width = this.target == ConversionOptions.Target.LUA_53 ? 64 : 32;
+
+		if (width == 32) {
+			value &= 0xFFFFFFFFL;
+		}
+
+		// Negative displacements shift in the other direction
+		if (shift < 0) {
+			shift = -shift;
+			leftShift = !leftShift;
+		}
+
+		if (shift >= width) {
+			return bitwise(0);
+		}
+
+		return bitwise(leftShift ? value << shift : value >>> shift);
+	}
+
+	@Override
+	public Constant visitBitwiseAnd(LuaJSSyntaxParser.BitwiseAndContext ctx) {
+		Constant left = bitwiseArgument(ctx.exp(0));
+		Constant right = bitwiseArgument(ctx.exp(1));
+
+		return left != null && right != null ? bitwise((long) left.number & (long) right.number) : null;
+	}
+
+	@Override
+	public Constant visitBitwiseXor(LuaJSSyntaxParser.BitwiseXorContext ctx) {
+		Constant left = bitwiseArgument(ctx.exp(0));
+		Constant right = bitwiseArgument(ctx.exp(1));
+
+		return left != null && right != null ? bitwise((long) left.number ^ (long) right.number) : null;
+	}
+
+	@Override
+	public Constant visitBitwiseOr(LuaJSSyntaxParser.BitwiseOrContext ctx) {
+		Constant left = bitwiseArgument(ctx.exp(0));
+		Constant right = bitwiseArgument(ctx.exp(1));
+
+		return left != null && right != null ? bitwise((long) left.number | (long) right.number) : null;
+	}
+
+	@Override
+	public Constant visitConcatOperator(LuaJSSyntaxParser.ConcatOperatorContext ctx) {
+		Constant left = evaluate(ctx.exp(0));
+		Constant right = evaluate(ctx.exp(1));
+
+		// Numbers are not concatenated, since their string representation depends on the implementation
+		if (left == null || right == null || left.type != Constant.Type.STRING || right.type != Constant.Type.STRING) {
+			return null;
+		}
+
+		if (left.string.length + right.string.length > MAX_STRING_LENGTH) {
+			return null;
+		}
+
+		byte[] result = Arrays.copyOf(left.string, left.string.length + right.string.length);
+		System.arraycopy(right.string, 0, result, left.string.length, right.string.length);
+
+		return Constant.string(result);
+	}
+
+	@Override
+	public Constant visitComparisonOperator(LuaJSSyntaxParser.ComparisonOperatorContext ctx) {
+		Constant left = evaluate(ctx.exp(0));
+		Constant right = evaluate(ctx.exp(1));
+
+		if (left == null || right == null) {
+			return null;
+		}
+
+		String op = ctx.op.getText();
+
+		if (op.equals("==") || op.equals("!=")) {
+			return Constant.bool(left.rawEquals(right) == op.equals("=="));
+		}
+
+		// Strings are compared using the current locale, so only numbers are compared
+		if (left.type != Constant.Type.NUMBER || right.type != Constant.Type.NUMBER) {
+			return null;
+		}
+
+		switch (op) {
+			case "<":
+				return Constant.bool(left.number < right.number);
+			case ">":
+				return Constant.bool(left.number > right.number);
+			case "<=":
+				return Constant.bool(left.number <= right.number);
+			default:
+				return Constant.bool(left.number >= right.number);
+		}
+	}
+
+	@Override
+	public Constant visitAndOperator(LuaJSSyntaxParser.AndOperatorContext ctx) {
+		Constant left = evaluate(ctx.exp(0));
+		Constant right = evaluate(ctx.exp(1));
+
+		return left != null && right != null ? (left.isTruthy() ? right : left) : null;
+	}
+
+	@Override
+	public Constant visitOrOperator(LuaJSSyntaxParser.OrOperatorContext ctx) {
+		Constant left = evaluate(ctx.exp(0));
+		Constant right = evaluate(ctx.exp(1));
+
+		return left != null && right != null ? (left.isTruthy() ? left : right) : null;
+	}
+
+	@Override
+	public Constant visitChildren(RuleNode node) {
+		return null;
+	}
+
+	// endregion
+
+	// region Utils
+
+	private Constant number(@NonNull LuaJSSyntaxParser.ExpContext ctx) {
+		Constant value = evaluate(ctx);
+
+		return value != null && value.type == Constant.Type.NUMBER ? value : null;
+	}
+
+	private Constant bitwiseArgument(@NonNull LuaJSSyntaxParser.ExpContext ctx) {
+		Constant value = evaluate(ctx);
+
+		return value != null && isBitwiseArgument(value) ? value : null;
+	}
+
+	private static boolean isBitwiseArgument(@NonNull Constant value) {
+		return value.type == Constant.Type.NUMBER && isIntegral(value.number) && Math.abs(value.number) < MAX_BITWISE_ARGUMENT;
+	}
+
+	/**
+	 * Converts a result of a bitwise operation to the value returned by the target: unsigned 32-bit integer for bit32,
+	 * signed 32-bit integer for bit, and 64-bit integer for native operators.
+	 */
+	private Constant bitwise(long result) {
+		switch (this.target) {
+			case LUA_51:
+				return integer((int) result);
+			case LUA_53:
+				return integer(result);
+			default:
+				return integer(result & 0xFFFFFFFFL);
+		}
+	}
+
+	private static boolean isIntegral(double value) {
+		return value == Math.rint(value) && !Double.isInfinite(value);
+	}
+
+	private static Constant arithmetic(double result, boolean integer) {
+		if (integer) {
+			return integer(result);
+		}
+
+		return Double.isNaN(result) || Double.isInfinite(result) ? null : Constant.number(result, false);
+	}
+
+	/**
+	 * Returns an integer constant, or null if the value may be not exactly representable as a double, or is a negative zero.
+	 * Results of double operations below 2^53 are exact, since rounding can not decrease a larger result below it.
+	 */
+	private static Constant integer(double value) {
+		if (value == 0 && 1 / value < 0) {
+			return null;
+		}
+
+		return Math.abs(value) < MAX_EXACT_INTEGER ? Constant.number(value, true) : null;
+	}
+
+	/**
+	 * Decodes the string literal to bytes of the Lua string, or returns null if it has an invalid escape sequence.
+	 */
+	private static byte[] decodeString(@NonNull String text) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(text.length());
+
+		int end = text.length() - 1;
+
+		for (int i = 1; i < end; i++) {
+			char c = text.charAt(i);
+
+			if (c != '\\') {
+				if (Character.isSurrogate(c)) {
+					if (i + 1 >= end || !Character.isSurrogatePair(c, text.charAt(i + 1))) {
+						return null;
+					}
+
+					writeUtf8(out, text.substring(i, i + 2));
+					i++;
+				} else {
+					writeUtf8(out, String.valueOf(c));
+				}
+
+				continue;
+			}
+
+			char e = text.charAt(++i);
+
+			switch (e) {
+				case 'a': out.write(7); break;
+				case 'b': out.write('\b'); break;
+				case 'f': out.write('\f'); break;
+				case 'n': out.write('\n'); break;
+				case 'r': out.write('\r'); break;
+				case 't': out.write('\t'); break;
+				case 'v': out.write(11); break;
+				case '\\': out.write('\\'); break;
+				case '"': out.write('"'); break;
+				case '\'': out.write('\''); break;
+				case '\r':
+					if (text.charAt(i + 1) == '\n') {
+						i++;
+					}
+
+					out.write('\n');
+					break;
+				case '\n':
+					out.write('\n');
+					break;
+				case 'z':
+					while (i + 1 < end && Character.isWhitespace(text.charAt(i + 1))) {
+						i++;
+					}
+
+					break;
+				case 'x':
+					out.write(Integer.parseInt(text.substring(i + 1, i + 3), 16));
+					i += 2;
+					break;
+				case 'u':
+					char u = (char) Integer.parseInt(text.substring(i + 1, i + 5), 16);
+
+					if (Character.isSurrogate(u)) {
+						return null;
+					}
+
+					writeUtf8(out, String.valueOf(u));
+					i += 4;
+					break;
+				default:
+					int digits = 1;
+
+					while (digits < 3 && i + digits < end && Character.isDigit(text.charAt(i + digits))) {
+						digits++;
+					}
+
+					int value = Integer.parseInt(text.substring(i, i + digits));
+
+					if (value > 255) {
+						return null;
+					}
+
+					out.write(value);
+					i += digits - 1;
+			}
+		}
+
+		return out.toByteArray();
+	}
+
+	private static void writeUtf8(@NonNull ByteArrayOutputStream out, @NonNull String s) {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	// endregion
+
+	/**
+	 * Value of a constant expression.
+	 */
+	static final class Constant {
+
+		enum Type {
+			NIL, BOOLEAN, NUMBER, STRING
+		}
+
+		static final Constant NIL = new Constant(Type.NIL, false, 0, false, null);
+
+		final Type type;
+		final boolean bool;
+		final double number;
+		/**
+		 * Whether the number would be an integer in Lua 5.3.
+		 */
+		final boolean integer;
+		final byte[] string;
+
+		private Constant(Type type, boolean bool, double number, boolean integer, byte[] string) {
+			this.type = type;
+			this.bool = bool;
+			this.number = number;
+			this.integer = integer;
+			this.string = string;
+		}
+
+		static Constant bool(boolean value) {
+			return new Constant(Type.BOOLEAN, value, 0, false, null);
+		}
+
+		static Constant number(double value, boolean integer) {
+			return new Constant(Type.NUMBER, false, value, integer, null);
+		}
+
+		static Constant string(@NonNull byte[] value) {
+			return new Constant(Type.STRING, false, 0, false, value);
+		}
+
+		boolean isTruthy() {
+			return this.type != Type.NIL && (this.type != Type.BOOLEAN || this.bool);
+		}
+
+		boolean rawEquals(@NonNull Constant other) {
+			if (this.type != other.type) {
+				return false;
+			}
+
+			switch (this.type) {
+				case BOOLEAN:
+					return this.bool == other.bool;
+				case NUMBER:
+					return this.number == other.number;
+				case STRING:
+					return Arrays.equals(this.string, other.string);
+				default:
+					return true;
+			}
+		}
+
+		/**
+		 * Returns Lua code of the constant.
+		 */
+		String toLua() {
+			switch (this.type) {
+				case BOOLEAN:
+					return this.bool ? "true" : "false";
+				case NUMBER:
+					return numberToLua();
+				case STRING:
+					return stringToLua();
+				default:
+					return "nil";
+			}
+		}
+
+		private String numberToLua() {
+			if (this.integer) {
+				return Long.toString((long) this.number);
+			}
+
+			if (isIntegral(this.number) && Math.abs(this.number) < MAX_EXACT_INTEGER) {
+				// Keep -0.0 and the float subtype of Lua 5.3
+				return (this.number == 0 && 1 / this.number < 0 ? "-" : "") + (long) this.number + ".0";
+			}
+
+			// Java representation is parsed back to the same double, and Lua accepts its format
+			return Double.toString(this.number);
+		}
+
+		private String stringToLua() {
+			String decoded;
+
+			try {
+				decoded = StandardCharsets.UTF_8.newDecoder()
+						.onMalformedInput(CodingErrorAction.REPORT)
+						.onUnmappableCharacter(CodingErrorAction.REPORT)
+						.decode(ByteBuffer.wrap(this.string))
+						.toString();
+			} catch (CharacterCodingException e) {
+				decoded = null;
+			}
+
+			StringBuilder builder = new StringBuilder(this.string.length + 2);
+
+			builder.append('"');
+
+			if (decoded != null) {
+				// Valid UTF-8 is printed as is, except for special chars
+				CharBuffer chars = CharBuffer.wrap(decoded);
+
+				while (chars.hasRemaining()) {
+					char c = chars.get();
+
+					if (c < 0x80) {
+						appendByte(builder, c);
+					} else {
+						builder.append(c);
+					}
+				}
+			} else {
+				for (byte b : this.string) {
+					appendByte(builder, b & 0xFF);
+				}
+			}
+
+			builder.append('"');
+
+			return builder.toString();
+		}
+
+		private static void appendByte(@NonNull StringBuilder builder, int b) {
+			switch (b) {
+				case '"': builder.append("\\\""); break;
+				case '\\': builder.append("\\\\"); break;
+				case '\n': builder.append("\\n"); break;
+				case '\r': builder.append("\\r"); break;
+				case '\t': builder.append("\\t"); break;
+				default:
+					if (b >= 0x20 && b < 0x7F) {
+						builder.append((char) b);
+					} else {
+						// Always 3 digits, so a following digit is not a part of the escape
+						builder.append('\\');
+						builder.append(b < 100 ? (b < 10 ? "00" : "0") : "");
+						builder.append(b);
+					}
+			}
+		}
+
+	}
+
+}
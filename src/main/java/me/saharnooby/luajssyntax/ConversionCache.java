@@ -0,0 +1,223 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import me.saharnooby.luajssyntax.util.HashUtil;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches conversion results by the hash of the source code.
+ * Has a bounded in-memory LRU tier and an optional on-disk tier, which is a directory of gzipped outputs.
+ * Instances are thread-safe and can be shared between threads, for example, in batch conversion.
+ * @author saharNooby
+ * @since 16:02 18.10.2026
+ */
+public final class ConversionCache {
+
+	/**
+	 * Version of the converter output. Is a part of the cache key together with options, so cached results of older converter versions are not used.
+	 * Must be changed on every change of the converter output.
+	 */
+	static final String OUTPUT_VERSION = "11";
+
+	private static final String DISK_EXTENSION = ".lua.gz";
+
+	private final Map<String, String> memory;
+	private final Path directory;
+
+	private final AtomicLong memoryHits = new AtomicLong();
+	private final AtomicLong diskHits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates a cache with in-memory tier only.
+	 * @param maxEntries Max count of results kept in memory, must be positive.
+	 */
+	public ConversionCache(int maxEntries) {
+		this(maxEntries, null);
+	}
+
+	/**
+	 * Creates a cache with in-memory tier and, if the directory is specified, on-disk tier.
+	 * @param maxEntries Max count of results kept in memory, must be positive.
+	 * @param directory Directory for the on-disk tier, may be null. Will be created if it does not exist.
+	 */
+	public ConversionCache(int maxEntries, Path directory) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be positive");
+		}
+
+		this.memory = new LinkedHashMap<String, String>(16, 0.75F, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				if (size() > maxEntries) {
+					ConversionCache.this.evictions.incrementAndGet();
+					return true;
+				}
+
+				return false;
+			}
+
+		};
+
+		this.directory = directory;
+	}
+
+	/**
+	 * Converts LuaJS source code to Lua, returning a cached result if the same source was already converted.
+	 * @param source LuaJS source code, must be not null.
+	 * @return Lua source code, will be not null.
+	 * @throws me.saharnooby.luajssyntax.exception.InvalidSyntaxException When provided source is invalid. Failures are not cached.
+	 * @throws UncheckedIOException When the on-disk tier can not be read or written.
+	 */
+	public String convert(@NonNull String source) {
+		return convert(source, ConversionOptions.DEFAULT);
+	}
+
+	/**
+	 * Converts LuaJS source code to Lua using the specified options, returning a cached result if the same source was already converted with the same options.
+	 * @param source LuaJS source code, must be not null.
+	 * @param options Conversion options, must be not null.
+	 * @return Lua source code, will be not null.
+	 * @throws me.saharnooby.luajssyntax.exception.InvalidSyntaxException When provided source is invalid. Failures are not cached.
+	 * @throws UncheckedIOException When the on-disk tier can not be read or written.
+	 */
+	public String convert(@NonNull String source, @NonNull ConversionOptions options) {
+		String sourceHash = HashUtil.md5(source);
+		String key = sourceHash + "_" + OUTPUT_VERSION + "_" + options.fingerprint();
+
+		String result;
+
+		synchronized (this.memory) {
+			result = this.memory.get(key);
+		}
+
+		if (result != null) {
+			this.memoryHits.incrementAndGet();
+			return result;
+		}
+
+		result = readFromDisk(key);
+
+		if (result != null) {
+			this.diskHits.incrementAndGet();
+		} else {
+			this.misses.incrementAndGet();
+
+			StringBuilder builder = new StringBuilder();
+			LuaJSToLua.convert(source, sourceHash, builder, options);
+			result = builder.toString();
+
+			writeToDisk(key, result);
+		}
+
+		synchronized (this.memory) {
+			this.memory.put(key, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Removes all results from the in-memory tier. The on-disk tier and the counters are not affected.
+	 */
+	public void clearMemory() {
+		synchronized (this.memory) {
+			this.memory.clear();
+		}
+	}
+
+	/**
+	 * @return Count of results currently kept in memory.
+	 */
+	public int getMemorySize() {
+		synchronized (this.memory) {
+			return this.memory.size();
+		}
+	}
+
+	/**
+	 * @return Count of conversions served from the in-memory tier.
+	 */
+	public long getMemoryHits() {
+		return this.memoryHits.get();
+	}
+
+	/**
+	 * @return Count of conversions served from the on-disk tier.
+	 */
+	public long getDiskHits() {
+		return this.diskHits.get();
+	}
+
+	/**
+	 * @return Count of conversions that were not found in any tier.
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * @return Count of results removed from the in-memory tier because of its size limit.
+	 */
+	public long getEvictions() {
+		return this.evictions.get();
+	}
+
+	private String readFromDisk(@NonNull String key) {
+		if (this.directory == null) {
+			return null;
+		}
+
+		Path file = this.directory.resolve(key + DISK_EXTENSION);
+
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+
+		try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8)) {
+			StringBuilder builder = new StringBuilder();
+			char[] buf = new char[8192];
+			int read;
+			while ((read = reader.read(buf)) != -1) {
+				builder.append(buf, 0, read);
+			}
+			return builder.toString();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeToDisk(@NonNull String key, @NonNull String result) {
+		if (this.directory == null) {
+			return;
+		}
+
+		try {
+			Files.createDirectories(this.directory);
+
+			// Write to a temporary file first, so concurrent readers never see a partially written result
+			Path temp = Files.createTempFile(this.directory, key, ".tmp");
+
+			try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8)) {
+				writer.write(result);
+			}
+
+			Files.move(temp, this.directory.resolve(key + DISK_EXTENSION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
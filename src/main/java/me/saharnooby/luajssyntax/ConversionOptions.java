@@ -0,0 +1,135 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import me.saharnooby.luajssyntax.util.HashUtil;
+
+/**
+ * Options of the conversion. Use {@code builder()} to create an instance, or {@link #DEFAULT} for default options.
+ * @author saharNooby
+ * @since 20:40 18.10.2026
+ */
+@Getter
+@ToString
+@Builder(toBuilder = true)
+public final class ConversionOptions {
+
+	public static final ConversionOptions DEFAULT = builder().build();
+
+	/**
+	 * Algorithm used to hash the source code when generating names of helper variables and labels.
+	 * The hash is computed only if the source has constructions requiring such names, like try-catch or continue.
+	 * Ignored if {@link #sourceId} is specified.
+	 */
+	@NonNull
+	@Builder.Default
+	private final HashAlgorithm hashAlgorithm = HashAlgorithm.MD5;
+	/**
+	 * Stable id of the source used instead of its hash when generating names of helper variables and labels, may be null.
+	 * Must consist of ASCII letters, digits and underscores.
+	 */
+	private final String sourceId;
+	/**
+	 * Whether to evaluate expressions with only literal operands, like {@code 1 << 4} or {@code "a" .. "b"}, during the conversion.
+	 * See {@link ConstantFolder} for which expressions are evaluated.
+	 */
+	@Builder.Default
+	private final boolean foldConstants = false;
+	/**
+	 * Lua version the converted code is run on. Determines how bitwise operators and {@code continue} are converted.
+	 */
+	@NonNull
+	@Builder.Default
+	private final Target target = Target.LUA_52;
+	/**
+	 * Whether library functions called by converted code, like {@code tostring}, {@code pcall} or {@code bit32.band},
+	 * are stored into locals at the start of the chunk, so each call does not look up globals.
+	 * Locals are declared on the first line, so line numbers are preserved. Functions are captured when the chunk is run,
+	 * so later changes of the globals do not affect converted code.
+	 */
+	@Builder.Default
+	private final boolean localHelpers = false;
+	/**
+	 * Whether bodies of try-catch statements inside functions and loops are converted to functions created once
+	 * and stored in a table declared at the start of the chunk, instead of closures created on each execution.
+	 * Locals used by a body are passed to its function as arguments; if the body assigns such locals,
+	 * or has nested functions using them, a closure is created as usual. See {@link TryCatchAnalyzer}.
+	 */
+	@Builder.Default
+	private final boolean hoistTryCatch = false;
+	/**
+	 * Whether for-of loops are converted to numeric for loops over indices from 1 to the length of the list, instead of {@code ipairs} calls.
+	 * The list is stored into a local and its length is taken once before the loop, so elements added by the body are not visited,
+	 * and nil elements before the length are visited as nil values instead of ending the loop.
+	 * Lists without nil elements, that are not changed by the loop, are iterated the same way.
+	 */
+	@Builder.Default
+	private final boolean numericForOf = false;
+	/**
+	 * Whether strings built in loops by appending to a local with {@code ..=} are collected into a table and concatenated once after the loop,
+	 * so building a string takes linear time instead of quadratic. See {@link StringBufferAnalyzer} for which loops are converted.
+	 */
+	@Builder.Default
+	private final boolean stringBuffers = false;
+	/**
+	 * Whether code that is never executed or has no effect is removed: statements after {@code return}, {@code break},
+	 * {@code continue}, {@code throw} or {@code goto}, branches of {@code if} statements with constant conditions,
+	 * and unused locals with values that have no side effects. Line numbers of the remaining code are preserved.
+	 * Use {@link LuaJSToLua#findDeadCode(String, ConversionOptions)} to list removed code. See {@link DeadCodeAnalyzer}.
+	 */
+	@Builder.Default
+	private final boolean eliminateDeadCode = false;
+	/**
+	 * Whether the converted code is minified: spaces and {@code ;} separators are printed only where needed, code of each source line
+	 * is printed on a single line without padding, so line numbers are not preserved, and locals and parameters are renamed to short names.
+	 * Use {@link LuaJSToLua#convert(org.antlr.v4.runtime.CharStream, Appendable, ConversionOptions, Appendable)} to write a {@link MinifyMapping} of lines and names,
+	 * which decodes error messages and stack traces. See {@link NameMinifier}.
+	 */
+	@Builder.Default
+	private final boolean minify = false;
+
+	/**
+	 * Returns a short hash of options, that is different for options producing different output.
+	 */
+	String fingerprint() {
+		return HashUtil.md5(toString()).substring(0, 8);
+	}
+
+	public enum HashAlgorithm {
+
+		/**
+		 * First 8 hex digits of MD5 of the UTF-8 representation of the source.
+		 */
+		MD5,
+		/**
+		 * 32-bit FNV-1a over UTF-16 code units of the source, in hex.
+		 * Much faster than MD5, but produces different names.
+		 */
+		FNV1A
+
+	}
+
+	public enum Target {
+
+		/**
+		 * Lua 5.1 and LuaJIT. Bitwise operators are converted to calls of the {@code bit} library (LuaBitOp), which is built into LuaJIT
+		 * and must be loaded into the global {@code bit} on Lua 5.1. Results of bitwise operators are signed 32-bit integers.
+		 * {@code continue} is converted without {@code goto}.
+		 */
+		LUA_51,
+		/**
+		 * Lua 5.2 and LuaJ. Bitwise operators are converted to calls of the {@code bit32} library.
+		 * Results of bitwise operators are unsigned 32-bit integers.
+		 */
+		LUA_52,
+		/**
+		 * Lua 5.3 and 5.4. Bitwise operators are converted to native Lua operators, which work with 64-bit integers
+		 * and raise an error on floats without an exact integer representation.
+		 */
+		LUA_53
+
+	}
+
+}
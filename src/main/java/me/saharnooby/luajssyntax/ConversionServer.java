@@ -0,0 +1,169 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Server converting LuaJS sources sent over TCP, so non-JVM tools can use a single warmed up converter process
+ * instead of starting a JVM for each file. The server listens on the loopback address only.
+ * <p>
+ * A client may send any count of requests over a connection; responses are sent in the same order.
+ * All integers are 4-byte big-endian, all strings are UTF-8 bytes prefixed by their length.
+ * <ul>
+ *     <li>Request: source string.</li>
+ *     <li>Response on success: byte {@link #STATUS_OK}, result string.</li>
+ *     <li>Response on invalid syntax: byte {@link #STATUS_INVALID_SYNTAX}, line integer, char position integer, message string.
+ *     See {@link InvalidSyntaxException} for details.</li>
+ *     <li>Response on other error: byte {@link #STATUS_ERROR}, message string.</li>
+ * </ul>
+ * If the request length is negative or exceeds {@link #MAX_REQUEST_LENGTH}, an error response is sent and the connection is closed.
+ * @author saharNooby
+ * @since 23:00 18.10.2026
+ */
+public final class ConversionServer implements Closeable {
+
+	public static final int STATUS_OK = 0;
+	public static final int STATUS_INVALID_SYNTAX = 1;
+	public static final int STATUS_ERROR = 2;
+
+	/**
+	 * Maximum length of a request in bytes.
+	 */
+	public static final int MAX_REQUEST_LENGTH = 64 * 1024 * 1024;
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor;
+
+	/**
+	 * Creates a server listening on the loopback address.
+	 * @param port Port to listen on, or 0 to use any free port.
+	 * @param threads Maximum count of connections served concurrently; other connections wait in a queue.
+	 * @throws IOException When the port can not be bound.
+	 */
+	public ConversionServer(int port, int threads) throws IOException {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Thread count must be positive, got " + threads);
+		}
+
+		this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		this.executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "LuaJS conversion server");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @return Port the server listens on.
+	 */
+	public int getPort() {
+		return this.serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Accepts connections until the server is closed.
+	 * @throws IOException When an I/O error occurs while waiting for a connection.
+	 */
+	public void serve() throws IOException {
+		while (true) {
+			Socket socket;
+
+			try {
+				socket = this.serverSocket.accept();
+			} catch (SocketException e) {
+				if (this.serverSocket.isClosed()) {
+					return;
+				}
+
+				throw e;
+			}
+
+			try {
+				this.executor.execute(() -> serve(socket));
+			} catch (RejectedExecutionException e) {
+				socket.close();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting connections and closes the server socket. Connections being served are not interrupted.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.executor.shutdown();
+		this.serverSocket.close();
+	}
+
+	private static void serve(@NonNull Socket socket) {
+		try (Socket s = socket;
+			 DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+			 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+			while (true) {
+				int length;
+
+				try {
+					length = in.readInt();
+				} catch (EOFException e) {
+					return;
+				}
+
+				if (length < 0 || length > MAX_REQUEST_LENGTH) {
+					out.writeByte(STATUS_ERROR);
+					writeString(out, "Invalid request length " + length);
+					out.flush();
+					return;
+				}
+
+				byte[] source = new byte[length];
+				in.readFully(source);
+
+				respond(new String(source, StandardCharsets.UTF_8), out);
+
+				out.flush();
+			}
+		} catch (IOException e) {
+			// The client has disconnected, nothing to report to
+		}
+	}
+
+	private static void respond(@NonNull String source, @NonNull DataOutputStream out) throws IOException {
+		String result;
+
+		try {
+			result = LuaJSToLua.convert(source);
+		} catch (InvalidSyntaxException e) {
+			out.writeByte(STATUS_INVALID_SYNTAX);
+			out.writeInt(e.getLine());
+			out.writeInt(e.getCharPosition());
+			writeString(out, e.getOriginalMessage());
+			return;
+		} catch (RuntimeException e) {
+			out.writeByte(STATUS_ERROR);
+			writeString(out, String.valueOf(e));
+			return;
+		}
+
+		out.writeByte(STATUS_OK);
+		writeString(out, result);
+	}
+
+	private static void writeString(@NonNull DataOutputStream out, @NonNull String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+}
@@ -0,0 +1,71 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Code that is removed from the converted code, since it is never executed or has no effect.
+ * See {@code eliminateDeadCode} of {@link ConversionOptions} and {@link LuaJSToLua#findDeadCode(String, ConversionOptions)}.
+ * @author saharNooby
+ * @since 03:20 19.10.2026
+ */
+@Getter
+@EqualsAndHashCode
+public final class DeadCode implements Comparable<DeadCode> {
+
+	/**
+	 * Line of the start of the code, starting from 1.
+	 */
+	private final int line;
+	/**
+	 * Position of the start of the code in the line, starting from 0.
+	 */
+	private final int charPosition;
+	private final Kind kind;
+
+	DeadCode(int line, int charPosition, @NonNull Kind kind) {
+		this.line = line;
+		this.charPosition = charPosition;
+		this.kind = kind;
+	}
+
+	/**
+	 * Compares positions of the code in the source.
+	 */
+	@Override
+	public int compareTo(@NonNull DeadCode o) {
+		return this.line != o.line ? Integer.compare(this.line, o.line) : Integer.compare(this.charPosition, o.charPosition);
+	}
+
+	@Override
+	public String toString() {
+		return "line " + this.line + ":" + this.charPosition + " " + this.kind.description;
+	}
+
+	public enum Kind {
+
+		/**
+		 * Statements after {@code return}, {@code break}, {@code continue}, {@code throw} or {@code goto} in the same block,
+		 * up to the next label. Reported once for all such statements.
+		 */
+		UNREACHABLE("unreachable code"),
+		/**
+		 * An {@code if} statement with a constant condition, of which only the executed branch is kept,
+		 * or a {@code while} loop with a false constant condition, which is removed.
+		 */
+		CONSTANT_CONDITION("constant condition"),
+		/**
+		 * Declaration of locals that are never used, with values that have no side effects.
+		 */
+		UNUSED_LOCAL("unused local");
+
+		private final String description;
+
+		Kind(String description) {
+			this.description = description;
+		}
+
+	}
+
+}
@@ -0,0 +1,407 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.*;
+
+/**
+ * Finds code that is never executed or has no effect:
+ * <ul>
+ *     <li>statements after {@code return}, {@code break}, {@code continue}, {@code throw} or {@code goto}, up to the next label;</li>
+ *     <li>branches of {@code if} statements with constant conditions, and {@code while} loops with false constant conditions;</li>
+ *     <li>declarations of locals that are not used after the declaration, if their values have no side effects.</li>
+ * </ul>
+ * Locals are checked against statements after the declaration in the same block, and against the condition of a do-while loop
+ * if the block is its body, since Lua evaluates the condition in the scope of the body. Names in those statements are not resolved,
+ * so a local is kept if a nested block declares or uses a variable with the same name.
+ * <p>
+ * Statements are removed only from blocks inside top-level statements, so each top-level statement is converted independently of others,
+ * as {@link IncrementalConversion} requires.
+ * @author saharNooby
+ * @since 03:20 19.10.2026
+ */
+final class DeadCodeAnalyzer {
+
+	private final ConstantFolder folder;
+
+	private final Set<LuaJSSyntaxParser.StatementContext> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Map<LuaJSSyntaxParser.IfContext, Boolean> constantConditions = new IdentityHashMap<>();
+	private final List<DeadCode> report = new ArrayList<>();
+
+	DeadCodeAnalyzer(@NonNull ConstantFolder folder) {
+		this.folder = folder;
+	}
+
+	/**
+	 * Analyzes the top-level statement and blocks inside it.
+	 */
+	void analyze(@NonNull LuaJSSyntaxParser.StatementContext statement) {
+		visit(statement);
+	}
+
+	/**
+	 * Returns whether the statement must not be printed.
+	 */
+	boolean isRemoved(@NonNull LuaJSSyntaxParser.StatementContext statement) {
+		return this.removed.contains(statement);
+	}
+
+	/**
+	 * Returns the truthiness of the condition of the if statement, or null if the condition is not a constant.
+	 */
+	Boolean getConstantCondition(@NonNull LuaJSSyntaxParser.IfContext statement) {
+		return this.constantConditions.get(statement);
+	}
+
+	/**
+	 * Returns found dead code in order of analysis, which is not the order of occurrence in the source.
+	 */
+	List<DeadCode> getReport() {
+		return this.report;
+	}
+
+	private void visit(@NonNull ParseTree tree) {
+		if (tree instanceof LuaJSSyntaxParser.BlockContext) {
+			visit(((LuaJSSyntaxParser.BlockContext) tree).statement(), Collections.emptySet());
+			return;
+		}
+
+		if (tree instanceof LuaJSSyntaxParser.DoWhileContext) {
+			LuaJSSyntaxParser.DoWhileContext ctx = (LuaJSSyntaxParser.DoWhileContext) tree;
+
+			if (ctx.statement() instanceof LuaJSSyntaxParser.BlockStatementContext) {
+				// The condition is converted to until of repeat, which sees locals of the body
+				Set<String> usedByCondition = new HashSet<>();
+
+				collectNames(ctx.exp(), usedByCondition);
+
+				visit(((LuaJSSyntaxParser.BlockStatementContext) ctx.statement()).block().statement(), usedByCondition);
+			} else {
+				visit(ctx.statement());
+			}
+
+			visit(ctx.exp());
+			return;
+		}
+
+		if (tree instanceof LuaJSSyntaxParser.IfContext) {
+			LuaJSSyntaxParser.IfContext ctx = (LuaJSSyntaxParser.IfContext) tree;
+
+			Boolean condition = evaluateCondition(ctx.exp());
+
+			if (condition != null) {
+				this.constantConditions.put(ctx, condition);
+
+				report(ctx, DeadCode.Kind.CONSTANT_CONDITION);
+
+				LuaJSSyntaxParser.StatementContext branch = getBranch(ctx, condition);
+
+				if (branch != null) {
+					visit(branch);
+				}
+
+				return;
+			}
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			visit(tree.getChild(i));
+		}
+	}
+
+	/**
+	 * @param usedAfterBlock Names used after the last statement while locals of the block are still visible.
+	 */
+	private void visit(@NonNull List<LuaJSSyntaxParser.StatementContext> statements, @NonNull Set<String> usedAfterBlock) {
+		boolean reachable = true;
+		boolean reported = false;
+
+		for (LuaJSSyntaxParser.StatementContext statement : statements) {
+			if (statement instanceof LuaJSSyntaxParser.LabelDeclarationContext) {
+				reachable = true;
+				reported = false;
+			}
+
+			if (!reachable) {
+				// Following unreachable statements are reported once, with the first of them
+				if (reported) {
+					this.removed.add(statement);
+				} else {
+					remove(statement, DeadCode.Kind.UNREACHABLE);
+
+					reported = true;
+				}
+
+				continue;
+			}
+
+			if (isNeverExecuted(statement)) {
+				remove(statement, DeadCode.Kind.CONSTANT_CONDITION);
+				continue;
+			}
+
+			if (isExit(statement)) {
+				reachable = false;
+			}
+		}
+
+		// Names used after a statement are collected in reverse order, so each statement is traversed once
+		Set<String> usedAfter = new HashSet<>(usedAfterBlock);
+
+		for (int i = statements.size() - 1; i >= 0; i--) {
+			LuaJSSyntaxParser.StatementContext statement = statements.get(i);
+
+			if (isRemoved(statement)) {
+				continue;
+			}
+
+			if (isUnusedLocal(statement, usedAfter)) {
+				remove(statement, DeadCode.Kind.UNUSED_LOCAL);
+				continue;
+			}
+
+			collectNames(statement, usedAfter);
+		}
+
+		for (LuaJSSyntaxParser.StatementContext statement : statements) {
+			if (!isRemoved(statement)) {
+				visit(statement);
+			}
+		}
+	}
+
+	private void remove(@NonNull LuaJSSyntaxParser.StatementContext statement, @NonNull DeadCode.Kind kind) {
+		this.removed.add(statement);
+
+		report(statement, kind);
+	}
+
+	private void report(@NonNull ParserRuleContext ctx, @NonNull DeadCode.Kind kind) {
+		this.report.add(new DeadCode(ctx.start.getLine(), ctx.start.getCharPositionInLine(), kind));
+	}
+
+	private Boolean evaluateCondition(@NonNull LuaJSSyntaxParser.ExpContext exp) {
+		ConstantFolder.Constant value = this.folder.evaluate(exp);
+
+		return value != null ? value.isTruthy() : null;
+	}
+
+	private boolean isNeverExecuted(@NonNull LuaJSSyntaxParser.StatementContext statement) {
+		if (statement instanceof LuaJSSyntaxParser.WhileContext) {
+			return Boolean.FALSE.equals(evaluateCondition(((LuaJSSyntaxParser.WhileContext) statement).exp()));
+		}
+
+		if (statement instanceof LuaJSSyntaxParser.IfContext) {
+			LuaJSSyntaxParser.IfContext ctx = (LuaJSSyntaxParser.IfContext) statement;
+
+			Boolean condition = evaluateCondition(ctx.exp());
+
+			return condition != null && getBranch(ctx, condition) == null;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the branch of the if statement executed when the condition has the specified truthiness, or null.
+	 */
+	static LuaJSSyntaxParser.StatementContext getBranch(@NonNull LuaJSSyntaxParser.IfContext ctx, boolean condition) {
+		if (condition) {
+			return ctx.statement(0);
+		}
+
+		return ctx.statement().size() > 1 ? ctx.statement(1) : null;
+	}
+
+	private static boolean isExit(@NonNull LuaJSSyntaxParser.StatementContext statement) {
+		return statement instanceof LuaJSSyntaxParser.ReturnContext
+				|| statement instanceof LuaJSSyntaxParser.BreakContext
+				|| statement instanceof LuaJSSyntaxParser.ContinueContext
+				|| statement instanceof LuaJSSyntaxParser.ThrowContext
+				|| statement instanceof LuaJSSyntaxParser.GotoContext;
+	}
+
+	private boolean isUnusedLocal(@NonNull LuaJSSyntaxParser.StatementContext statement, @NonNull Set<String> usedAfter) {
+		if (!(statement instanceof LuaJSSyntaxParser.LocalVariableDeclarationContext)) {
+			return false;
+		}
+
+		LuaJSSyntaxParser.LocalVariableDeclarationContext ctx = (LuaJSSyntaxParser.LocalVariableDeclarationContext) statement;
+
+		for (TerminalNode name : ctx.namelist().NAME()) {
+			if (usedAfter.contains(name.getText())) {
+				return false;
+			}
+		}
+
+		if (ctx.explist() != null) {
+			for (LuaJSSyntaxParser.ExpContext exp : ctx.explist().exp()) {
+				if (!isPure(exp)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns whether evaluating the expression has no side effects and can not raise an error.
+	 * Names are resolved only inside the top-level statement, so reads of locals of other top-level statements are not pure.
+	 */
+	private boolean isPure(@NonNull LuaJSSyntaxParser.ExpContext exp) {
+		if (this.folder.evaluate(exp) != null) {
+			return true;
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.ParenthesisExpressionContext) {
+			return isPure(((LuaJSSyntaxParser.ParenthesisExpressionContext) exp).exp());
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.VarExpressionContext) {
+			LuaJSSyntaxParser.VarContext var = ((LuaJSSyntaxParser.VarExpressionContext) exp).var();
+
+			return var.NAME() != null && var.varSuffix().isEmpty() && isLocal(var, var.NAME().getText());
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.TableExpressionContext) {
+			LuaJSSyntaxParser.EntriesContext entries = ((LuaJSSyntaxParser.TableExpressionContext) exp).table().entries();
+
+			if (entries != null) {
+				for (LuaJSSyntaxParser.EntryContext entry : entries.entry()) {
+					if (entry.key_expr() != null && !isPure(entry.key_expr().exp()) || !isPure(entry.exp())) {
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.ListExpressionContext) {
+			LuaJSSyntaxParser.ElementsContext elements = ((LuaJSSyntaxParser.ListExpressionContext) exp).list().elements();
+
+			if (elements != null) {
+				for (LuaJSSyntaxParser.ExpContext element : elements.exp()) {
+					if (!isPure(element)) {
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		return exp instanceof LuaJSSyntaxParser.LiteralContext
+				|| exp instanceof LuaJSSyntaxParser.NumberLiteralContext
+				|| exp instanceof LuaJSSyntaxParser.StringLiteralContext
+				|| exp instanceof LuaJSSyntaxParser.FunctionLiteralContext
+				|| exp instanceof LuaJSSyntaxParser.ArrowFunctionLiteralContext;
+	}
+
+	/**
+	 * Returns whether the name used in the tree is a local or a parameter declared in an enclosing scope of the same top-level statement.
+	 */
+	private static boolean isLocal(@NonNull ParseTree tree, @NonNull String name) {
+		ParseTree child = tree;
+		ParseTree parent = tree.getParent();
+
+		while (parent != null && !(parent instanceof LuaJSSyntaxParser.ProgramContext)) {
+			if (parent instanceof LuaJSSyntaxParser.BlockContext) {
+				List<LuaJSSyntaxParser.StatementContext> statements = ((LuaJSSyntaxParser.BlockContext) parent).statement();
+
+				for (int i = statements.indexOf(child) - 1; i >= 0; i--) {
+					if (declares(statements.get(i), name)) {
+						return true;
+					}
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.ForContext) {
+				LuaJSSyntaxParser.ForContext ctx = (LuaJSSyntaxParser.ForContext) parent;
+
+				if (ctx.init != null && ctx.init != child && declares(ctx.init, name)) {
+					return true;
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.ForInContext) {
+				LuaJSSyntaxParser.ForInContext ctx = (LuaJSSyntaxParser.ForInContext) parent;
+
+				if (child != ctx.exp() && isDeclared(ctx.namelist().NAME(), name)) {
+					return true;
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.ForOfContext) {
+				LuaJSSyntaxParser.ForOfContext ctx = (LuaJSSyntaxParser.ForOfContext) parent;
+
+				if (child != ctx.exp() && isDeclared(ctx.NAME(), name)) {
+					return true;
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.TryCatchContext) {
+				LuaJSSyntaxParser.TryCatchContext ctx = (LuaJSSyntaxParser.TryCatchContext) parent;
+
+				if (child == ctx.block(1) && ctx.NAME().getText().equals(name)) {
+					return true;
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.FunctionDeclarationContext) {
+				LuaJSSyntaxParser.NamelistContext params = ((LuaJSSyntaxParser.FunctionDeclarationContext) parent).namelist();
+
+				if (params != null && isDeclared(params.NAME(), name)) {
+					return true;
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.FunctionLiteralContext) {
+				LuaJSSyntaxParser.NamelistContext params = ((LuaJSSyntaxParser.FunctionLiteralContext) parent).namelist();
+
+				if (params != null && isDeclared(params.NAME(), name)) {
+					return true;
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.ArrowFunctionLiteralContext) {
+				LuaJSSyntaxParser.ArrowFunctionLiteralContext ctx = (LuaJSSyntaxParser.ArrowFunctionLiteralContext) parent;
+
+				if (ctx.NAME() != null ? ctx.NAME().getText().equals(name) : ctx.namelist() != null && isDeclared(ctx.namelist().NAME(), name)) {
+					return true;
+				}
+			}
+
+			child = parent;
+			parent = parent.getParent();
+		}
+
+		return false;
+	}
+
+	private static boolean declares(@NonNull LuaJSSyntaxParser.StatementContext statement, @NonNull String name) {
+		if (statement instanceof LuaJSSyntaxParser.LocalVariableDeclarationContext) {
+			return isDeclared(((LuaJSSyntaxParser.LocalVariableDeclarationContext) statement).namelist().NAME(), name);
+		}
+
+		if (statement instanceof LuaJSSyntaxParser.FunctionDeclarationContext) {
+			List<TerminalNode> names = ((LuaJSSyntaxParser.FunctionDeclarationContext) statement).funcname().NAME();
+
+			return names.size() == 1 && names.get(0).getText().equals(name);
+		}
+
+		return false;
+	}
+
+	private static boolean isDeclared(@NonNull List<TerminalNode> names, @NonNull String name) {
+		for (TerminalNode node : names) {
+			if (node.getText().equals(name)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static void collectNames(@NonNull ParseTree tree, @NonNull Set<String> names) {
+		if (StringBufferAnalyzer.isVariableName(tree)) {
+			names.add(tree.getText());
+			return;
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			collectNames(tree.getChild(i), names);
+		}
+	}
+
+}
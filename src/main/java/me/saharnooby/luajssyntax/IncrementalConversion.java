@@ -0,0 +1,413 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.Getter;
+import lombok.NonNull;
+import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
+import me.saharnooby.luajssyntax.util.HashUtil;
+import me.saharnooby.luajssyntax.util.Lazy;
+import me.saharnooby.luajssyntax.util.Printer;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a conversion that can be updated incrementally when the source changes.
+ * <p>
+ * Output of each top-level statement is kept separately. Since line numbers are preserved, the output of a statement
+ * depends only on its own text, so on update only the statements touched by the edit are lexed, parsed and printed again,
+ * and outputs of all other statements are reused. Statements with try-catch or continue are printed again too,
+ * if the hash of the source or their try-catch variable indices have changed.
+ * The output is always identical to the output of {@link LuaJSToLua#convert(String)}.
+ * <p>
+ * The edited region is parsed together with one unchanged statement on each side. If the boundaries of these statements
+ * have changed after parsing (for example, an unclosed comment was inserted), the region is widened.
+ * If the source is invalid, the whole source is converted again to report the error with correct position.
+ * <p>
+ * Instances are immutable.
+ * @author saharNooby
+ * @since 17:40 18.10.2026
+ */
+public final class IncrementalConversion {
+
+	@Getter
+	private final String source;
+	/**
+	 * Id of the source used in names of helper variables and labels, computed only if the source has such names.
+	 */
+	private final Lazy<String> sourceId;
+	private final List<Chunk> chunks;
+	/**
+	 * Lua code, identical to the result of {@link LuaJSToLua#convert(String)} for the source.
+	 */
+	@Getter
+	private final String output;
+	/**
+	 * Count of top-level statements which outputs were reused from the previous conversion.
+	 */
+	@Getter
+	private final int reusedStatementCount;
+
+	private IncrementalConversion(@NonNull String source, @NonNull Lazy<String> sourceId, @NonNull List<Chunk> chunks, int reusedStatementCount) {
+		this.source = source;
+		this.sourceId = sourceId;
+		this.chunks = chunks;
+		this.output = join(chunks);
+		this.reusedStatementCount = reusedStatementCount;
+	}
+
+	/**
+	 * Converts LuaJS source code to Lua, keeping the data required for incremental updates.
+	 * @param source LuaJS source code, must be not null.
+	 * @return Conversion result, will be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 */
+	public static IncrementalConversion convert(@NonNull String source) {
+		Lazy<String> sourceId = sourceId(source);
+
+		LuaJSSyntaxParser.ProgramContext program = LuaJSToLua.parse(CharStreams.fromString(source));
+
+		List<Chunk> chunks = new ArrayList<>();
+
+		int statusVarIndex = 0;
+
+		for (LuaJSSyntaxParser.StatementContext statement : program.statement()) {
+			Chunk chunk = Chunk.print(statement, 0, 1, sourceId, statusVarIndex);
+			statusVarIndex += chunk.statusVarCount;
+			chunks.add(chunk);
+		}
+
+		return new IncrementalConversion(source, sourceId, chunks, 0);
+	}
+
+	/**
+	 * Converts the new version of the source, reusing outputs of statements that were not changed.
+	 * The changed region is found by comparing the sources.
+	 * @param newSource New LuaJS source code, must be not null.
+	 * @return Conversion result for the new source, will be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 */
+	public IncrementalConversion update(@NonNull String newSource) {
+		int limit = Math.min(this.source.length(), newSource.length());
+
+		int prefix = 0;
+
+		while (prefix < limit && this.source.charAt(prefix) == newSource.charAt(prefix)) {
+			prefix++;
+		}
+
+		int suffix = 0;
+
+		while (suffix < limit - prefix && this.source.charAt(this.source.length() - 1 - suffix) == newSource.charAt(newSource.length() - 1 - suffix)) {
+			suffix++;
+		}
+
+		return update(newSource, prefix, suffix);
+	}
+
+	/**
+	 * Converts the source with the specified region replaced, reusing outputs of statements that were not changed.
+	 * @param start Index of the first replaced char in the current source.
+	 * @param end Index after the last replaced char in the current source.
+	 * @param replacement Text to put instead of the region, must be not null.
+	 * @return Conversion result for the new source, will be not null.
+	 * @throws InvalidSyntaxException When resulting source is invalid.
+	 */
+	public IncrementalConversion update(int start, int end, @NonNull String replacement) {
+		if (start < 0 || end < start || end > this.source.length()) {
+			throw new IndexOutOfBoundsException("Invalid region " + start + ".." + end);
+		}
+
+		String newSource = this.source.substring(0, start) + replacement + this.source.substring(end);
+
+		return update(newSource, start, this.source.length() - end);
+	}
+
+	private IncrementalConversion update(@NonNull String newSource, int prefix, int suffix) {
+		if (this.chunks.isEmpty() || newSource.equals(this.source)) {
+			return newSource.equals(this.source) ? this : convert(newSource);
+		}
+
+		try {
+			IncrementalConversion result = updateChunks(newSource, prefix, suffix);
+
+			return result != null ? result : convert(newSource);
+		} catch (InvalidSyntaxException e) {
+			// Positions in the exception are relative to the reparsed region, so the whole source is converted to report them correctly
+			return convert(newSource);
+		}
+	}
+
+	/**
+	 * Returns null if the source must be converted fully.
+	 */
+	private IncrementalConversion updateChunks(@NonNull String newSource, int prefix, int suffix) {
+		int oldEditEnd = this.source.length() - suffix;
+		int newEditEnd = newSource.length() - suffix;
+
+		int charDelta = newSource.length() - this.source.length();
+		int lineDelta = countLines(newSource, prefix, newEditEnd) - countLines(this.source, prefix, oldEditEnd);
+
+		int count = this.chunks.size();
+
+		// Chunks [first, last] overlap the edited region; if there are none, the edit is between chunks last and first
+		int first = 0;
+
+		while (first < count && this.chunks.get(first).stop < prefix) {
+			first++;
+		}
+
+		int last = count - 1;
+
+		while (last >= 0 && this.chunks.get(last).start >= oldEditEnd) {
+			last--;
+		}
+
+		// Include one unchanged neighbour on each side to validate statement boundaries
+		int lo = Math.max(Math.min(first, last + 1) - 1, 0);
+		int hi = Math.min(Math.max(last, first - 1) + 1, count - 1);
+
+		List<LuaJSSyntaxParser.StatementContext> statements;
+		int regionStart;
+		int regionStartLine;
+
+		while (true) {
+			regionStart = lo == 0 ? 0 : this.chunks.get(lo).start;
+			regionStartLine = lo == 0 ? 1 : this.chunks.get(lo).startLine;
+			int regionEnd = hi == count - 1 ? newSource.length() : this.chunks.get(hi).stop + charDelta + 1;
+
+			statements = LuaJSToLua.parse(CharStreams.fromString(newSource.substring(regionStart, regionEnd))).statement();
+
+			boolean leftValid = lo == 0 || matches(statements, 0, this.chunks.get(lo), -regionStart);
+			boolean rightValid = hi == count - 1 || matches(statements, statements.size() - 1, this.chunks.get(hi), charDelta - regionStart);
+
+			if (leftValid && rightValid) {
+				break;
+			}
+
+			int width = hi - lo + 1;
+
+			if (!leftValid) {
+				lo = Math.max(lo - width, 0);
+			}
+
+			if (!rightValid) {
+				hi = Math.min(hi + width, count - 1);
+			}
+		}
+
+		Lazy<String> newSourceId = sourceId(newSource);
+
+		List<Chunk> newChunks = new ArrayList<>(count - (hi - lo + 1) + statements.size());
+
+		int statusVarIndex = 0;
+		int reused = 0;
+
+		for (int i = 0; i < lo; i++) {
+			Chunk chunk = reuse(newSource, this.chunks.get(i), 0, 0, newSourceId, statusVarIndex);
+
+			if (chunk == null) {
+				return null;
+			}
+
+			reused += chunk.output == this.chunks.get(i).output ? 1 : 0;
+			statusVarIndex += chunk.statusVarCount;
+			newChunks.add(chunk);
+		}
+
+		for (LuaJSSyntaxParser.StatementContext statement : statements) {
+			Chunk chunk = Chunk.print(statement, regionStart, regionStartLine, newSourceId, statusVarIndex);
+			statusVarIndex += chunk.statusVarCount;
+			newChunks.add(chunk);
+		}
+
+		for (int i = hi + 1; i < count; i++) {
+			Chunk chunk = reuse(newSource, this.chunks.get(i), charDelta, lineDelta, newSourceId, statusVarIndex);
+
+			if (chunk == null) {
+				return null;
+			}
+
+			reused += chunk.output == this.chunks.get(i).output ? 1 : 0;
+			statusVarIndex += chunk.statusVarCount;
+			newChunks.add(chunk);
+		}
+
+		return new IncrementalConversion(newSource, newSourceId, newChunks, reused);
+	}
+
+	/**
+	 * Returns the chunk moved to its new position, or prints the statement again if its output depends on the changed hash or status var index.
+	 * Returns null if the statement can not be parsed separately from its neighbours.
+	 */
+	private Chunk reuse(@NonNull String newSource, @NonNull Chunk chunk, int charDelta, int lineDelta, @NonNull Lazy<String> newSourceId, int statusVarIndex) {
+		boolean hashChanged = chunk.usesSourceHash && !newSourceId.get().equals(this.sourceId.get());
+		boolean indexChanged = chunk.statusVarCount > 0 && chunk.firstStatusVarIndex != statusVarIndex;
+
+		int start = chunk.start + charDelta;
+		int stop = chunk.stop + charDelta;
+
+		if (!hashChanged && !indexChanged) {
+			return charDelta == 0 && lineDelta == 0 ? chunk : chunk.move(charDelta, lineDelta);
+		}
+
+		List<LuaJSSyntaxParser.StatementContext> statements = LuaJSToLua.parse(CharStreams.fromString(newSource.substring(start, stop + 1))).statement();
+
+		if (statements.size() != 1) {
+			return null;
+		}
+
+		return Chunk.print(statements.get(0), start, chunk.startLine + lineDelta, newSourceId, statusVarIndex);
+	}
+
+	/**
+	 * Checks that the statement parsed from the region has the same position as the chunk.
+	 * @param offset Offset to add to chunk positions to get positions relative to the region.
+	 */
+	private static boolean matches(@NonNull List<LuaJSSyntaxParser.StatementContext> statements, int index, @NonNull Chunk chunk, int offset) {
+		if (index < 0 || index >= statements.size()) {
+			return false;
+		}
+
+		LuaJSSyntaxParser.StatementContext statement = statements.get(index);
+
+		return statement.start.getStartIndex() == chunk.start + offset && statement.stop.getStopIndex() == chunk.stop + offset;
+	}
+
+	private static Lazy<String> sourceId(@NonNull String source) {
+		return Lazy.of(() -> HashUtil.md5(source).substring(0, 8));
+	}
+
+	private static String join(@NonNull List<Chunk> chunks) {
+		int length = 0;
+
+		for (Chunk chunk : chunks) {
+			length += chunk.output.length() + 1;
+		}
+
+		StringBuilder builder = new StringBuilder(length);
+
+		int line = 1;
+
+		for (int i = 0; i < chunks.size(); i++) {
+			Chunk chunk = chunks.get(i);
+
+			if (i > 0) {
+				builder.append(' ');
+			}
+
+			for (; line < chunk.startLine; line++) {
+				builder.append('\n');
+			}
+
+			builder.append(chunk.output);
+
+			line += chunk.lineCount;
+		}
+
+		return builder.toString();
+	}
+
+	private static int countLines(@NonNull String s, int start, int end) {
+		int count = 0;
+
+		for (int i = start; i < end; i++) {
+			if (s.charAt(i) == '\n') {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Output of a single top-level statement, starting at the line of the statement.
+	 */
+	private static final class Chunk {
+
+		/**
+		 * Index of the first char of the statement in the source.
+		 */
+		private final int start;
+		/**
+		 * Index of the last char of the statement in the source.
+		 */
+		private final int stop;
+		/**
+		 * Line of the first token of the statement.
+		 */
+		private final int startLine;
+		private final String output;
+		/**
+		 * Count of line breaks in the output.
+		 */
+		private final int lineCount;
+		/**
+		 * Whether the output contains names generated from the source hash.
+		 */
+		private final boolean usesSourceHash;
+		private final int firstStatusVarIndex;
+		private final int statusVarCount;
+
+		private Chunk(int start, int stop, int startLine, @NonNull String output, int lineCount, boolean usesSourceHash, int firstStatusVarIndex, int statusVarCount) {
+			this.start = start;
+			this.stop = stop;
+			this.startLine = startLine;
+			this.output = output;
+			this.lineCount = lineCount;
+			this.usesSourceHash = usesSourceHash;
+			this.firstStatusVarIndex = firstStatusVarIndex;
+			this.statusVarCount = statusVarCount;
+		}
+
+		/**
+		 * @param regionStart Index of the region the statement was parsed from.
+		 * @param regionStartLine Line of the region the statement was parsed from.
+		 */
+		private static Chunk print(@NonNull LuaJSSyntaxParser.StatementContext statement, int regionStart, int regionStartLine, @NonNull Lazy<String> sourceId, int statusVarIndex) {
+			StringBuilder builder = new StringBuilder();
+
+			Printer printer = new Printer(builder, statement.start.getLine());
+
+			LuaJSToLuaConverter converter = new LuaJSToLuaConverter(printer, sourceId);
+			converter.setNextStatusVarIndex(statusVarIndex);
+			converter.printTopLevel(statement);
+
+			printer.flush();
+
+			String output = builder.toString();
+
+			return new Chunk(
+					regionStart + statement.start.getStartIndex(),
+					regionStart + statement.stop.getStopIndex(),
+					regionStartLine + statement.start.getLine() - 1,
+					output,
+					countLines(output, 0, output.length()),
+					usesSourceHash(statement),
+					statusVarIndex,
+					converter.getNextStatusVarIndex() - statusVarIndex
+			);
+		}
+
+		private Chunk move(int charDelta, int lineDelta) {
+			return new Chunk(this.start + charDelta, this.stop + charDelta, this.startLine + lineDelta, this.output, this.lineCount, this.usesSourceHash, this.firstStatusVarIndex, this.statusVarCount);
+		}
+
+		private static boolean usesSourceHash(@NonNull ParseTree tree) {
+			if (tree instanceof LuaJSSyntaxParser.TryCatchContext || tree instanceof LuaJSSyntaxParser.ContinueContext) {
+				return true;
+			}
+
+			for (int i = 0; i < tree.getChildCount(); i++) {
+				if (usesSourceHash(tree.getChild(i))) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+	}
+
+}
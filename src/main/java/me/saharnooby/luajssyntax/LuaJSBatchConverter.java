@@ -0,0 +1,129 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class provides methods to convert many LuaJS sources in parallel.
+ * A failure of one source does not affect conversion of others; errors are reported per source in {@link BatchResult}.
+ * @author saharNooby
+ * @since 15:10 18.10.2026
+ */
+public final class LuaJSBatchConverter {
+
+	/**
+	 * Converts LuaJS sources to Lua in parallel using the common {@link ForkJoinPool}.
+	 * @param sources Map of source names to LuaJS source code, must be not null.
+	 * @return Map of source names to conversion results, in the iteration order of the sources map.
+	 */
+	public static <K> Map<K, BatchResult> convert(@NonNull Map<K, String> sources) {
+		return convert(sources, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Converts LuaJS sources to Lua in parallel using the specified executor.
+	 * @param sources Map of source names to LuaJS source code, must be not null.
+	 * @param executor Executor to run conversions on, must be not null.
+	 * @return Map of source names to conversion results, in the iteration order of the sources map.
+	 */
+	public static <K> Map<K, BatchResult> convert(@NonNull Map<K, String> sources, @NonNull Executor executor) {
+		Map<K, CompletableFuture<BatchResult>> futures = new LinkedHashMap<>();
+
+		sources.forEach((name, source) -> futures.put(name, CompletableFuture.supplyAsync(() -> convertSafely(source), executor)));
+
+		return join(futures);
+	}
+
+	/**
+	 * Converts LuaJS files to Lua files in parallel using the specified executor.
+	 * Sources are read and destinations are written in UTF-8; missing destination directories are created.
+	 * @param files Map of source files to destination files, must be not null.
+	 * @param executor Executor to run conversions on, must be not null.
+	 * @return Map of source files to conversion results, in the iteration order of the files map.
+	 * Outputs of the results are always null.
+	 */
+	public static Map<Path, BatchResult> convertFiles(@NonNull Map<Path, Path> files, @NonNull Executor executor) {
+		return convertFiles(files, executor, null);
+	}
+
+	/**
+	 * Converts LuaJS files to Lua files in parallel using the specified executor, looking up the results in the cache first.
+	 * Sources are read and destinations are written in UTF-8; missing destination directories are created.
+	 * @param files Map of source files to destination files, must be not null.
+	 * @param executor Executor to run conversions on, must be not null.
+	 * @param cache Cache of conversion results, may be null.
+	 * @return Map of source files to conversion results, in the iteration order of the files map.
+	 * Outputs of the results are always null.
+	 */
+	public static Map<Path, BatchResult> convertFiles(@NonNull Map<Path, Path> files, @NonNull Executor executor, ConversionCache cache) {
+		Map<Path, CompletableFuture<BatchResult>> futures = new LinkedHashMap<>();
+
+		files.forEach((source, destination) -> futures.put(source, CompletableFuture.supplyAsync(() -> convertFile(source, destination, cache), executor)));
+
+		return join(futures);
+	}
+
+	private static BatchResult convertSafely(@NonNull String source) {
+		try {
+			return BatchResult.success(LuaJSToLua.convert(source));
+		} catch (RuntimeException e) {
+			return BatchResult.failure(e);
+		}
+	}
+
+	private static BatchResult convertFile(@NonNull Path source, @NonNull Path destination, ConversionCache cache) {
+		try {
+			Path parent = destination.toAbsolutePath().getParent();
+
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+
+			if (cache != null) {
+				String result = cache.convert(new String(Files.readAllBytes(source), StandardCharsets.UTF_8));
+
+				Files.write(destination, result.getBytes(StandardCharsets.UTF_8));
+			} else {
+				CharStream in = CharStreams.fromPath(source, StandardCharsets.UTF_8);
+
+				try (Writer writer = Files.newBufferedWriter(destination, StandardCharsets.UTF_8)) {
+					LuaJSToLua.convert(in, writer);
+				} catch (RuntimeException e) {
+					// Do not leave partially written output
+					Files.deleteIfExists(destination);
+					throw e;
+				}
+			}
+
+			return BatchResult.success(null);
+		} catch (IOException e) {
+			return BatchResult.failure(e);
+		} catch (UncheckedIOException e) {
+			return BatchResult.failure(e.getCause());
+		} catch (RuntimeException e) {
+			return BatchResult.failure(e);
+		}
+	}
+
+	private static <K> Map<K, BatchResult> join(@NonNull Map<K, CompletableFuture<BatchResult>> futures) {
+		Map<K, BatchResult> results = new LinkedHashMap<>();
+
+		futures.forEach((name, future) -> results.put(name, future.join()));
+
+		return results;
+	}
+
+}
@@ -0,0 +1,86 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.Prototype;
+import org.luaj.vm2.compiler.DumpState;
+import org.luaj.vm2.compiler.LuaC;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * This class provides methods to compile LuaJS code to LuaJ prototypes and Lua 5.2 binary chunks.
+ * Binary chunks can be produced ahead of time and loaded by LuaJ without parsing any source code at load time.
+ * Line numbers in the debug info are the line numbers of the LuaJS source.
+ * Requires LuaJ on the classpath.
+ * @author saharNooby
+ * @since 23:55 18.10.2026
+ */
+public final class LuaJSCompiler {
+
+	/**
+	 * Compiles LuaJS code to a LuaJ prototype.
+	 * @param source LuaJS source code, must be not null.
+	 * @param chunkName Name of the chunk used in error messages and stacktraces, like a file name, must be not null.
+	 * @return Compiled prototype of the main chunk function.
+	 * @throws InvalidSyntaxException When LuaJS code has invalid syntax.
+	 */
+	public static Prototype compile(@NonNull String source, @NonNull String chunkName) {
+		return compile(CharStreams.fromString(source), chunkName);
+	}
+
+	/**
+	 * Compiles LuaJS code to a LuaJ prototype.
+	 * @param in Stream of LuaJS source code, must be not null.
+	 * @param chunkName Name of the chunk used in error messages and stacktraces, like a file name, must be not null.
+	 * @return Compiled prototype of the main chunk function.
+	 * @throws InvalidSyntaxException When LuaJS code has invalid syntax.
+	 */
+	public static Prototype compile(@NonNull CharStream in, @NonNull String chunkName) {
+		// LuaJ lexer reads bytes, so UTF-8 in string literals is kept as is
+		ByteArrayOutputStream lua = new ByteArrayOutputStream();
+
+		LuaJSToLua.convert(in, lua);
+
+		try {
+			return LuaC.instance.compile(new ByteArrayInputStream(lua.toByteArray()), chunkName);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (LuaError e) {
+			throw new IllegalStateException("Converted code is not valid Lua: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Compiles LuaJS code to a Lua 5.2 binary chunk in the LuaJ format, loadable with {@link org.luaj.vm2.LoadState#undump}
+	 * or with {@code load} function from Lua code.
+	 * @param in Stream of LuaJS source code, must be not null.
+	 * @param chunkName Name of the chunk used in error messages and stacktraces, like a file name, must be not null.
+	 * @param out Stream to write the binary chunk to, must be not null.
+	 * @param stripDebug Whether to omit debug info, including line numbers and names of locals.
+	 * @throws InvalidSyntaxException When LuaJS code has invalid syntax.
+	 * @throws IOException When the stream throws an IOException.
+	 */
+	public static void compile(@NonNull CharStream in, @NonNull String chunkName, @NonNull OutputStream out, boolean stripDebug) throws IOException {
+		dump(compile(in, chunkName), out, stripDebug);
+	}
+
+	/**
+	 * Writes the prototype as a Lua 5.2 binary chunk in the LuaJ format.
+	 * @param prototype Prototype to write, must be not null.
+	 * @param out Stream to write the binary chunk to, must be not null.
+	 * @param stripDebug Whether to omit debug info, including line numbers and names of locals.
+	 * @throws IOException When the stream throws an IOException.
+	 */
+	public static void dump(@NonNull Prototype prototype, @NonNull OutputStream out, boolean stripDebug) throws IOException {
+		DumpState.dump(prototype, out, stripDebug);
+	}
+
+}
@@ -0,0 +1,258 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
+import me.saharnooby.luajssyntax.util.HashUtil;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LoadState;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Prototype;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allows LuaJ to load LuaJS sources: chunks with names ending with {@link #EXTENSION} are converted and compiled,
+ * so {@code require}, {@code loadfile}, {@code dofile} and {@link Globals#load(String, String)} accept LuaJS code.
+ * <p>
+ * Compiled prototypes are cached by chunk name and the hash of the source, so loading the same source again,
+ * even into another {@link Globals}, skips both conversion and compilation. If the chunk name is a path of an existing file
+ * (as with the default JSE resource finder), modification time and size of the file are checked first, so an unchanged file is not even read.
+ * Both prototypes and file states are kept in LRU order: when there are more than max entries, the least recently loaded one is removed,
+ * so memory use is bounded even when many different files or sources are loaded.
+ * <p>
+ * Instances are thread-safe and can be installed into any count of globals. Requires LuaJ on the classpath.
+ * @author saharNooby
+ * @since 23:59 18.10.2026
+ */
+public final class LuaJSLoader {
+
+	/**
+	 * Extension of chunk names of LuaJS sources.
+	 */
+	public static final String EXTENSION = ".ljs";
+
+	private final Map<String, Prototype> prototypes;
+	/**
+	 * Last known states of files, by paths.
+	 */
+	private final Map<Path, FileState> files;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param maxEntries Max count of compiled prototypes and of file states kept in memory, must be positive.
+	 */
+	public LuaJSLoader(int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be positive");
+		}
+
+		this.prototypes = new LinkedHashMap<String, Prototype>(16, 0.75F, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Prototype> eldest) {
+				return size() > maxEntries;
+			}
+
+		};
+
+		this.files = new LinkedHashMap<Path, FileState>(16, 0.75F, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Path, FileState> eldest) {
+				return size() > maxEntries;
+			}
+
+		};
+	}
+
+	/**
+	 * Installs the loader into the globals: wraps its compiler, so LuaJS chunks are compiled by this loader and other chunks by the original compiler,
+	 * and adds LuaJS files to the search path of {@code require}, if the package library is loaded.
+	 * @param globals Globals to install into, must be not null.
+	 */
+	public void install(@NonNull Globals globals) {
+		globals.compiler = new Compiler(globals.compiler);
+
+		LuaValue pkg = globals.get("package");
+
+		if (pkg.istable()) {
+			String path = pkg.get("path").optjstring("");
+
+			pkg.set("path", (path.isEmpty() ? "" : path + ";") + "?" + EXTENSION);
+		}
+	}
+
+	/**
+	 * Returns the compiled prototype of the LuaJS source, converting and compiling it only if it is not cached.
+	 * @param in Stream of UTF-8 LuaJS source, must be not null. Is not closed.
+	 * @param chunkName Name of the chunk, must be not null. A leading {@code @} is ignored when checking for a file.
+	 * @return Compiled prototype.
+	 * @throws me.saharnooby.luajssyntax.exception.InvalidSyntaxException When the source has invalid syntax.
+	 * @throws IOException When the stream can not be read.
+	 */
+	public Prototype load(@NonNull InputStream in, @NonNull String chunkName) throws IOException {
+		Path file = toFile(chunkName);
+		BasicFileAttributes attributes = file != null ? Files.readAttributes(file, BasicFileAttributes.class) : null;
+
+		if (attributes != null) {
+			FileState state;
+
+			synchronized (this.files) {
+				state = this.files.get(file);
+			}
+
+			if (state != null && state.matches(attributes)) {
+				Prototype prototype = get(state.key);
+
+				if (prototype != null) {
+					this.hits.incrementAndGet();
+					return prototype;
+				}
+			}
+		}
+
+		String source = new String(readAll(in), StandardCharsets.UTF_8);
+		String key = chunkName + ":" + HashUtil.md5(source);
+
+		if (attributes != null) {
+			synchronized (this.files) {
+				this.files.put(file, new FileState(attributes.lastModifiedTime().toMillis(), attributes.size(), key));
+			}
+		}
+
+		Prototype prototype = get(key);
+
+		if (prototype != null) {
+			this.hits.incrementAndGet();
+			return prototype;
+		}
+
+		this.misses.incrementAndGet();
+
+		prototype = LuaJSCompiler.compile(source, chunkName);
+
+		synchronized (this.prototypes) {
+			this.prototypes.put(key, prototype);
+		}
+
+		return prototype;
+	}
+
+	/**
+	 * Removes all cached prototypes.
+	 */
+	public void clear() {
+		synchronized (this.prototypes) {
+			this.prototypes.clear();
+		}
+
+		synchronized (this.files) {
+			this.files.clear();
+		}
+	}
+
+	/**
+	 * @return Count of loads that returned a cached prototype.
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return Count of loads that converted and compiled the source.
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	private Prototype get(@NonNull String key) {
+		synchronized (this.prototypes) {
+			return this.prototypes.get(key);
+		}
+	}
+
+	/**
+	 * Returns the path of the existing file named by the chunk name, or null.
+	 */
+	private static Path toFile(@NonNull String chunkName) {
+		String name = chunkName.startsWith("@") ? chunkName.substring(1) : chunkName;
+
+		try {
+			Path path = Paths.get(name);
+
+			return Files.isRegularFile(path) ? path.toAbsolutePath().normalize() : null;
+		} catch (InvalidPathException e) {
+			return null;
+		}
+	}
+
+	private static byte[] readAll(@NonNull InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		byte[] buffer = new byte[8192];
+
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+
+		return out.toByteArray();
+	}
+
+	@RequiredArgsConstructor
+	private static final class FileState {
+
+		private final long lastModified;
+		private final long size;
+		private final String key;
+
+		boolean matches(@NonNull BasicFileAttributes attributes) {
+			return this.lastModified == attributes.lastModifiedTime().toMillis() && this.size == attributes.size();
+		}
+
+	}
+
+	/**
+	 * Compiles LuaJS chunks with the loader, and other chunks with the original compiler.
+	 */
+	@RequiredArgsConstructor
+	private final class Compiler implements Globals.Compiler {
+
+		private final Globals.Compiler fallback;
+
+		@Override
+		public Prototype compile(InputStream stream, String chunkName) throws IOException {
+			if (chunkName.endsWith(EXTENSION)) {
+				try {
+					return load(stream, chunkName);
+				} catch (InvalidSyntaxException e) {
+					// Reported by LuaJ like a syntax error of Lua code
+					throw new LuaError(LoadState.getSourceName(chunkName) + ": " + e.getMessage());
+				}
+			}
+
+			if (this.fallback == null) {
+				throw new LuaError("No compiler.");
+			}
+
+			return this.fallback.compile(stream, chunkName);
+		}
+
+	}
+
+}
@@ -1,10 +1,24 @@
 package me.saharnooby.luajssyntax;
 
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
 import me.saharnooby.luajssyntax.util.HashUtil;
 import me.saharnooby.luajssyntax.util.Printer;
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * This class provides a method to convert LuaJS source code to Lua code.
@@ -42,25 +56,282 @@ public final class LuaJSToLua {
 	 * @throws java.io.UncheckedIOException When out throws an IOException.
 	 */
 	public static void convert(@NonNull String source, @NonNull Appendable out) {
-		convert(CharStreams.fromString(source), HashUtil.md5(source), out);
+		convert(CharStreams.fromString(source), out, ConversionOptions.DEFAULT);
+	}
+
+	/**
+	 * Converts LuaJS source code to Lua using the specified options, preserving line numbers.
+	 * @param source LuaJS source code, must be not null.
+	 * @param options Conversion options, must be not null.
+	 * @return Lua source code, will be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 */
+	public static String convert(@NonNull String source, @NonNull ConversionOptions options) {
+		StringBuilder sb = new StringBuilder();
+		convert(CharStreams.fromString(source), sb, options);
+		return sb.toString();
+	}
+
+	/**
+	 * Converts LuaJS source code read from the Reader to Lua, preserving line numbers. Resulting code will be appended to the specified Appendable.
+	 * The reader is read until the end, but not closed.
+	 * @param in Reader of LuaJS source code, must be not null.
+	 * @param out Destination for writing the result code, must be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 * @throws IOException When in throws an IOException.
+	 * @throws java.io.UncheckedIOException When out throws an IOException.
+	 */
+	public static void convert(@NonNull Reader in, @NonNull Appendable out) throws IOException {
+		convert(CharStreams.fromReader(in), out);
+	}
+
+	/**
+	 * Converts LuaJS source code from the file to Lua, preserving line numbers. Resulting code will be appended to the specified Appendable.
+	 * @param source Path of the file with LuaJS source code, must be not null.
+	 * @param charset Charset of the file, must be not null.
+	 * @param out Destination for writing the result code, must be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 * @throws IOException When the file can not be read.
+	 * @throws java.io.UncheckedIOException When out throws an IOException.
+	 */
+	public static void convert(@NonNull Path source, @NonNull Charset charset, @NonNull Appendable out) throws IOException {
+		convert(CharStreams.fromPath(source, charset), out);
+	}
+
+	/**
+	 * Converts LuaJS source code from the CharStream to Lua, preserving line numbers. Resulting code will be appended to the specified Appendable.
+	 * @param in LuaJS source code, must be not null.
+	 * @param out Destination for writing the result code, must be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 * @throws java.io.UncheckedIOException When out throws an IOException.
+	 */
+	public static void convert(@NonNull CharStream in, @NonNull Appendable out) {
+		convert(in, out, ConversionOptions.DEFAULT);
+	}
+
+	/**
+	 * Converts LuaJS source code from the CharStream to Lua using the specified options, preserving line numbers.
+	 * Resulting code will be appended to the specified Appendable.
+	 * @param in LuaJS source code, must be not null.
+	 * @param out Destination for writing the result code, must be not null.
+	 * @param options Conversion options, must be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 * @throws java.io.UncheckedIOException When out throws an IOException.
+	 */
+	public static void convert(@NonNull CharStream in, @NonNull Appendable out, @NonNull ConversionOptions options) {
+		checkSourceId(options);
+
+		convert(in, new SourceIdSupplier(in, options), new Printer(out, options.isMinify()), options);
+	}
+
+	/**
+	 * Converts LuaJS source code from the CharStream to Lua, preserving line numbers. Resulting code will be written to the stream in UTF-8.
+	 * The stream is flushed, but not closed.
+	 * @param in LuaJS source code, must be not null.
+	 * @param out Destination for writing the result code, must be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 * @throws java.io.UncheckedIOException When out throws an IOException.
+	 */
+	public static void convert(@NonNull CharStream in, @NonNull OutputStream out) {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+		convert(in, writer);
+
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Converts LuaJS source code from the CharStream to Lua, preserving line numbers. Resulting code will be written to the channel in UTF-8.
+	 * The channel is not closed.
+	 * @param in LuaJS source code, must be not null.
+	 * @param out Destination for writing the result code, must be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 * @throws java.io.UncheckedIOException When out throws an IOException.
+	 */
+	public static void convert(@NonNull CharStream in, @NonNull WritableByteChannel out) {
+		convert(in, Channels.newOutputStream(out));
+	}
+
+	/**
+	 * Converts LuaJS source code from the CharStream to minified Lua and writes the mapping of minified lines and names of locals to source ones,
+	 * which can be read by {@link MinifyMapping#read(Reader)}. Resulting code will be appended to the specified Appendable.
+	 * @param in LuaJS source code, must be not null.
+	 * @param out Destination for writing the result code, must be not null.
+	 * @param options Conversion options with {@code minify} enabled, must be not null.
+	 * @param mapping Destination for writing the mapping, must be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 * @throws IllegalArgumentException When options do not enable minification.
+	 * @throws java.io.UncheckedIOException When out or mapping throws an IOException.
+	 */
+	public static void convert(@NonNull CharStream in, @NonNull Appendable out, @NonNull ConversionOptions options, @NonNull Appendable mapping) {
+		if (!options.isMinify()) {
+			throw new IllegalArgumentException("Mapping can be written only for minified code");
+		}
+
+		checkSourceId(options);
+
+		Printer printer = new Printer(out, true);
+
+		LuaJSToLuaConverter converter = convert(in, new SourceIdSupplier(in, options), printer, options);
+
+		new MinifyMapping(printer.getSourceLines(), converter.getMinifiedLocals()).write(mapping);
 	}
 
-	private static void convert(@NonNull CharStream in, @NonNull String sourceHash, @NonNull Appendable out) {
+	/**
+	 * Converts LuaJS source code from the CharStream to Lua using the specified options, and maps positions of tokens in the result code
+	 * to source positions, for tools like profilers. Resulting code will be appended to the specified Appendable,
+	 * and is the same as without mapping.
+	 * @param in LuaJS source code, must be not null.
+	 * @param out Destination for writing the result code, must be not null.
+	 * @param options Conversion options, must be not null.
+	 * @return Source map of the result code, will be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 * @throws java.io.UncheckedIOException When out throws an IOException.
+	 */
+	public static SourceMap convertWithSourceMap(@NonNull CharStream in, @NonNull Appendable out, @NonNull ConversionOptions options) {
+		checkSourceId(options);
+
+		Printer printer = new Printer(out, options.isMinify());
+
+		printer.recordMappings();
+
+		convert(in, new SourceIdSupplier(in, options), printer, options);
+
+		return new SourceMap(printer.getMappings());
+	}
+
+	/**
+	 * Finds code that is removed during the conversion with {@code eliminateDeadCode} enabled,
+	 * regardless of whether it is enabled in the specified options.
+	 * @param source LuaJS source code, must be not null.
+	 * @param options Conversion options, must be not null.
+	 * @return Removed code in order of occurrence in the source, will be not null.
+	 * @throws InvalidSyntaxException When provided source is invalid.
+	 */
+	public static List<DeadCode> findDeadCode(@NonNull String source, @NonNull ConversionOptions options) {
+		DeadCodeAnalyzer analyzer = new DeadCodeAnalyzer(new ConstantFolder(options.getTarget()));
+
+		for (LuaJSSyntaxParser.StatementContext statement : parse(CharStreams.fromString(source)).statement()) {
+			analyzer.analyze(statement);
+		}
+
+		List<DeadCode> result = new ArrayList<>(analyzer.getReport());
+
+		Collections.sort(result);
+
+		return result;
+	}
+
+	/**
+	 * Same as {@link #convert(String, ConversionOptions)}, but uses an already computed MD5 hash of the source, if options require it.
+	 */
+	static void convert(@NonNull String source, @NonNull String sourceMd5, @NonNull Appendable out, @NonNull ConversionOptions options) {
+		CharStream in = CharStreams.fromString(source);
+
+		if (options.getSourceId() == null && options.getHashAlgorithm() == ConversionOptions.HashAlgorithm.MD5) {
+			convert(in, () -> sourceMd5.substring(0, 8), new Printer(out, options.isMinify()), options);
+		} else {
+			convert(in, out, options);
+		}
+	}
+
+	/**
+	 * Prints the converted program and flushes the printer.
+	 * @return The converter that printed the program.
+	 */
+	private static LuaJSToLuaConverter convert(@NonNull CharStream in, @NonNull Supplier<String> sourceId, @NonNull Printer printer, @NonNull ConversionOptions options) {
+		LuaJSSyntaxParser.ProgramContext program = parse(in);
+
+		LuaJSToLuaConverter converter = new LuaJSToLuaConverter(printer, sourceId, options);
+
+		converter.print(program);
+
+		printer.flush();
+
+		return converter;
+	}
+
+	/**
+	 * @throws IllegalArgumentException When the source id specified in options contains invalid chars.
+	 */
+	private static void checkSourceId(@NonNull ConversionOptions options) {
+		String sourceId = options.getSourceId();
+
+		if (sourceId != null && !sourceId.matches("[A-Za-z0-9_]+")) {
+			throw new IllegalArgumentException("Source id must consist of ASCII letters, digits and underscores, got " + sourceId);
+		}
+	}
+
+	/**
+	 * Returns the id of the source used in names of helper variables and labels.
+	 */
+	private static String sourceId(@NonNull CharStream in, @NonNull ConversionOptions options) {
+		if (options.getSourceId() != null) {
+			return options.getSourceId();
+		}
+
+		switch (options.getHashAlgorithm()) {
+			case FNV1A:
+				return HashUtil.fnv1a32(in);
+			case MD5:
+			default:
+				return HashUtil.md5(in).substring(0, 8);
+		}
+	}
+
+	static LuaJSSyntaxParser.ProgramContext parse(@NonNull CharStream in) {
 		LuaJSSyntaxLexer lexer = new LuaJSSyntaxLexer(in);
 
 		lexer.removeErrorListeners();
 		lexer.addErrorListener(THROWING_LISTENER);
 
-		CommonTokenStream tokens = new CommonTokenStream(lexer);
+		return parse(new CommonTokenStream(lexer));
+	}
 
+	/**
+	 * Parses the program using the two-stage strategy: first with the faster SLL prediction mode, bailing out on any error,
+	 * and, if it fails, again with the full LL mode. The second stage reports the errors, so messages are the same as with LL-only parsing.
+	 */
+	static LuaJSSyntaxParser.ProgramContext parse(@NonNull CommonTokenStream tokens) {
 		LuaJSSyntaxParser parser = new LuaJSSyntaxParser(tokens);
 
 		parser.removeErrorListeners();
-		parser.addErrorListener(THROWING_LISTENER);
+		parser.setErrorHandler(new BailErrorStrategy());
+		parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+		try {
+			return parser.program();
+		} catch (ParseCancellationException e) {
+			tokens.seek(0);
+			parser.reset();
+
+			parser.addErrorListener(THROWING_LISTENER);
+			parser.setErrorHandler(new DefaultErrorStrategy());
+			parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+			return parser.program();
+		}
+	}
+
+	/**
+	 * Computes the id of the source on demand. This is a class instead of a lambda, because bootstrapping the first lambda
+	 * takes a noticeable part of the time of a single conversion in a fresh process.
+	 */
+	@RequiredArgsConstructor
+	private static final class SourceIdSupplier implements Supplier<String> {
+
+		private final CharStream in;
+		private final ConversionOptions options;
 
-		LuaJSSyntaxParser.ProgramContext program = parser.program();
+		@Override
+		public String get() {
+			return sourceId(this.in, this.options);
+		}
 
-		new LuaJSToLuaConverter(new Printer(out), sourceHash).print(program);
 	}
 
 }
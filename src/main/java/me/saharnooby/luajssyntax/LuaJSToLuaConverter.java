@@ -1,32 +1,106 @@
 package me.saharnooby.luajssyntax;
 
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
+import me.saharnooby.luajssyntax.util.Lazy;
 import me.saharnooby.luajssyntax.util.Printer;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.RuleNode;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.function.Consumer;
+import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * @author saharNooby
  * @since 16:28 20.08.2019
  */
-@SuppressWarnings("unused")
 final class LuaJSToLuaConverter {
 
 	private final Printer printer;
 	/**
-	 * MD5 hash of the source code.
+	 * Dispatches statement and expression contexts to the corresponding print method.
 	 */
-	private final String sourceHash;
+	private final Dispatcher dispatcher = new Dispatcher();
+	/**
+	 * Id of the source code used in names of helper variables and labels.
+	 * Computed only when such a name is printed.
+	 */
+	private final Lazy<String> sourceId;
+	/**
+	 * Evaluates constant expressions. Is also used to analyze loops when constant folding is disabled.
+	 */
+	private final ConstantFolder constantFolder;
+	/**
+	 * Whether constant expressions are replaced with their values.
+	 */
+	private final boolean foldConstants;
+	/**
+	 * Lua version the code is converted for.
+	 */
+	private final ConversionOptions.Target target;
+	/**
+	 * Whether library functions used by converted code are stored into locals at the start of the chunk.
+	 */
+	private final boolean localHelpers;
+	/**
+	 * Library functions called by printed code, like {@code tostring} or {@code bit32.band}, recorded when local aliases are used.
+	 */
+	private final Set<String> hoistedHelpers = new TreeSet<>();
+	/**
+	 * Whether bodies of try-catch statements are converted to functions created once, when possible.
+	 */
+	private final boolean hoistTryCatch;
+	/**
+	 * Whether for-of loops are converted to numeric for loops over indices of the list.
+	 */
+	private final boolean numericForOf;
+	/**
+	 * Whether appends to strings in loops are collected into tables.
+	 */
+	private final boolean stringBuffers;
+	/**
+	 * Finds statements that are not printed and if statements with constant conditions, null if all code is printed.
+	 */
+	private final DeadCodeAnalyzer deadCode;
+	/**
+	 * Whether locals and parameters are renamed to short names.
+	 */
+	private final boolean minify;
+	/**
+	 * Assigns short names to locals and parameters of the program, null if names are kept.
+	 */
+	private NameMinifier nameMinifier;
+	/**
+	 * Loops which appends are collected into tables, mapped to names of locals they append to.
+	 */
+	private Map<LuaJSSyntaxParser.StatementContext, List<String>> bufferedLoops = Collections.emptyMap();
+	/**
+	 * Names of locals which appends are currently collected into tables, mapped to suffixes of names of the tables.
+	 */
+	private final Map<String, String> activeBuffers = new HashMap<>();
+	/**
+	 * Index of the next table collecting appends.
+	 */
+	private int nextBufferIndex;
+	/**
+	 * Vars which object or key are currently stored into locals.
+	 */
+	private final Set<LuaJSSyntaxParser.VarContext> cachedVars = Collections.newSetFromMap(new IdentityHashMap<>());
+	/**
+	 * Try-catch statements which bodies are converted to functions created once,
+	 * mapped to names of locals passed to the functions.
+	 */
+	private Map<LuaJSSyntaxParser.TryCatchContext, List<String>> hoistedTryCatches = Collections.emptyMap();
+	/**
+	 * Loop nesting level at the start of the innermost try-catch body being printed, -1 if not inside a try-catch body.
+	 * Break and continue can not leave the body, since it is a function.
+	 */
+	private int tryLoopLevel = -1;
 
 	/**
 	 * Current loop nesting level, 0 == not inside loop currently.
@@ -38,27 +112,121 @@ final class LuaJSToLuaConverter {
 	 * Unused labels will not be emitted.
 	 */
 	private final Set<Integer> usedLabels = new HashSet<>();
+	/**
+	 * Levels of loops whose bodies are wrapped into {@code repeat ... until true}, so continue is converted to break.
+	 * Used for targets without goto.
+	 */
+	private final Set<Integer> repeatLoops = new HashSet<>();
+	/**
+	 * Levels of loops wrapped into {@code repeat ... until true} which also contain break.
+	 * Break sets a flag that is checked after the repeat block.
+	 */
+	private final Set<Integer> flaggedBreakLoops = new HashSet<>();
 
 	/**
 	 * Index of the variable used to store pcall status.
 	 */
+	@Getter
+	@Setter
 	private int nextStatusVarIndex;
 
-	public LuaJSToLuaConverter(@NonNull Printer printer, @NonNull String sourceHash) {
+	public LuaJSToLuaConverter(@NonNull Printer printer, @NonNull Supplier<String> sourceId) {
+		this(printer, sourceId, ConversionOptions.DEFAULT);
+	}
+
+	public LuaJSToLuaConverter(@NonNull Printer printer, @NonNull Supplier<String> sourceId, @NonNull ConversionOptions options) {
 		this.printer = printer;
-		this.sourceHash = sourceHash;
+		this.sourceId = Lazy.of(sourceId);
+		this.constantFolder = new ConstantFolder(options.getTarget());
+		this.foldConstants = options.isFoldConstants();
+		this.target = options.getTarget();
+		this.localHelpers = options.isLocalHelpers();
+		this.hoistTryCatch = options.isHoistTryCatch();
+		this.numericForOf = options.isNumericForOf();
+		this.stringBuffers = options.isStringBuffers();
+		this.deadCode = options.isEliminateDeadCode() ? new DeadCodeAnalyzer(this.constantFolder) : null;
+		this.minify = options.isMinify();
 	}
 
 	private void print(String s) {
 		this.printer.print(s);
 	}
 
+	private void print(char c) {
+		this.printer.print(c);
+	}
+
+	private void printLiteral(String s) {
+		this.printer.printLiteral(s);
+	}
+
 	private void line(Token token) {
-		this.printer.setExpectedLine(token.getLine());
+		this.printer.setSourcePosition(token.getLine(), token.getCharPositionInLine());
+	}
+
+	/**
+	 * Maps following code to the token as synthesized code, without changing the expected line.
+	 */
+	private void synthetic(Token token) {
+		this.printer.setSyntheticPosition(token.getLine(), token.getCharPositionInLine());
 	}
 
 	public void print(LuaJSSyntaxParser.ProgramContext ctx) {
+		if (this.deadCode != null) {
+			for (LuaJSSyntaxParser.StatementContext statement : ctx.statement()) {
+				this.deadCode.analyze(statement);
+			}
+		}
+
+		if (this.stringBuffers) {
+			this.bufferedLoops = StringBufferAnalyzer.analyze(ctx);
+		}
+
+		if (this.minify) {
+			this.nameMinifier = NameMinifier.analyze(ctx, this.target);
+		}
+
+		if (this.localHelpers) {
+			// Aliases are inserted before the code after it is printed, when used functions are known
+			this.printer.holdOutput();
+		}
+
+		if (this.hoistTryCatch) {
+			this.hoistedTryCatches = TryCatchAnalyzer.analyze(ctx);
+
+			if (!this.hoistedTryCatches.isEmpty()) {
+				// Hoisted functions are stored in a table, so their count is not limited by the max count of locals
+				print("local ");
+				print(getTryFunctionTable());
+				print(" = {}; ");
+			}
+		}
+
 		print(ctx.statement());
+
+		if (this.localHelpers) {
+			this.printer.insertAtStart(getHelperAliases());
+		}
+	}
+
+	/**
+	 * Returns renamed locals and parameters of the printed program, or an empty list if names are kept.
+	 */
+	public List<MinifyMapping.Local> getMinifiedLocals() {
+		return this.nameMinifier != null ? this.nameMinifier.getLocals() : Collections.<MinifyMapping.Local>emptyList();
+	}
+
+	/**
+	 * Prints a single top-level statement with the separator after it, exactly as it is printed as a part of the program.
+	 * The space between top-level statements is not printed.
+	 */
+	public void printTopLevel(LuaJSSyntaxParser.StatementContext ctx) {
+		if (this.deadCode != null) {
+			this.deadCode.analyze(ctx);
+		}
+
+		print(ctx);
+		print(';');
 	}
 
 	// region Statements
@@ -68,6 +236,15 @@ final class LuaJSToLuaConverter {
 	}
 
 	private void print(LuaJSSyntaxParser.BreakContext ctx) {
+		checkNotLeavingTry(ctx, "break");
+
+		if (this.flaggedBreakLoops.contains(this.loopLevel)) {
+			print("do ");
+			print(getBreakFlag());
+			print(" = true; break end");
+			return;
+		}
+
 		print("break");
 	}
 
@@ -76,6 +253,14 @@ final class LuaJSToLuaConverter {
 			throw new InvalidSyntaxException(ctx.start.getLine(), ctx.start.getCharPositionInLine(), "continue outside of loop", null);
 		}
 
+		checkNotLeavingTry(ctx, "continue");
+
+		if (this.repeatLoops.contains(this.loopLevel)) {
+			// Exits the repeat block, but not the loop
+			print("do break end");
+			return;
+		}
+
 		print("goto ");
 		print(getContinueLabel());
 
@@ -123,9 +308,102 @@ final class LuaJSToLuaConverter {
 	}
 
 	private void print(LuaJSSyntaxParser.AssginmentOperatorContext ctx) {
+		String appended = StringBufferAnalyzer.getAppended(ctx);
+
+		if (appended != null && this.activeBuffers.containsKey(appended)) {
+			printBufferAppend(ctx, this.activeBuffers.get(appended));
+			return;
+		}
+
+		boolean cached = startUpdate(ctx.var());
+
 		print(ctx.var());
 		print(" = ");
 		print(ctx.var(), ctx.assignmentOperator().start, ctx.exp(), true);
+
+		endUpdate(ctx.var(), cached);
+	}
+
+	private void printBufferAppend(LuaJSSyntaxParser.AssginmentOperatorContext ctx, String suffix) {
+		synthetic(ctx.start);
+
+		// The count is changed after the value is evaluated, so an error in the value leaves no hole in the table
+		print("buf_");
+		print(suffix);
+		print("[n_");
+		print(suffix);
+		print(" + 1] = ");
+
+		if (isConcatOrString(ctx.exp())) {
+			print(ctx.exp());
+		} else {
+			print(helper("tostring"));
+			print('(');
+			print(ctx.exp());
+			print(')');
+		}
+
+		print("; n_");
+		print(suffix);
+		print(" = n_");
+		print(suffix);
+		print(" + 1");
+	}
+
+	/**
+	 * Prints the loop with appends to the locals collected into tables, which are concatenated after the loop.
+	 */
+	private void printBufferedLoop(LuaJSSyntaxParser.StatementContext ctx, List<String> names) {
+		List<String> suffixes = new ArrayList<>();
+
+		synthetic(ctx.start);
+
+		print("do ");
+
+		for (String name : names) {
+			String suffix = this.sourceId.get() + "_" + this.nextBufferIndex++;
+
+			suffixes.add(suffix);
+
+			// Values are converted to strings as by concatenation, which would call tostring on the left side
+			print("local buf_");
+			print(suffix);
+			print(", n_");
+			print(suffix);
+			print(" = {");
+			print(helper("tostring"));
+			print('(');
+			print(getName(name, ctx));
+			print(")}, 1; ");
+
+			this.activeBuffers.put(name, suffix);
+		}
+
+		line(ctx.start);
+
+		ctx.accept(this.dispatcher);
+
+		synthetic(ctx.stop);
+
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i);
+			String suffix = suffixes.get(i);
+
+			this.activeBuffers.remove(name);
+
+			// The local is not changed if nothing was appended
+			print("; if n_");
+			print(suffix);
+			print(" > 1 then ");
+			print(getName(name, ctx));
+			print(" = ");
+			print(helper("table.concat"));
+			print("(buf_");
+			print(suffix);
+			print(") end");
+		}
+
+		print(" end");
 	}
 
 	private void print(LuaJSSyntaxParser.FunctionCallContext ctx) {
@@ -156,6 +434,22 @@ final class LuaJSToLuaConverter {
 	}
 
 	private void print(LuaJSSyntaxParser.IfContext ctx) {
+		Boolean condition = this.deadCode != null ? this.deadCode.getConstantCondition(ctx) : null;
+
+		if (condition != null) {
+			LuaJSSyntaxParser.StatementContext branch = DeadCodeAnalyzer.getBranch(ctx, condition);
+
+			if (branch != null) {
+				print("do ");
+				printWithoutDoEnd(branch);
+				print(" end");
+			} else {
+				print("do end");
+			}
+
+			return;
+		}
+
 		print("if (");
 		print(ctx.exp());
 		print(") then ");
@@ -173,7 +467,7 @@ final class LuaJSToLuaConverter {
 		print("while (");
 		print(ctx.exp());
 		print(") do ");
-		onLoopStart();
+		onLoopStart(ctx.statement());
 		printWithoutDoEnd(ctx.statement());
 		onLoopEnd();
 		print(" end");
@@ -181,7 +475,7 @@ final class LuaJSToLuaConverter {
 
 	private void print(LuaJSSyntaxParser.DoWhileContext ctx) {
 		print("repeat ");
-		onLoopStart();
+		onLoopStart(ctx.statement());
 		printWithoutDoEnd(ctx.statement());
 		onLoopEnd();
 		print(" until (not (");
@@ -204,20 +498,20 @@ final class LuaJSToLuaConverter {
 		print("while ");
 
 		if (ctx.exp() != null) {
-			print("(");
+			print('(');
 			print(ctx.exp());
-			print(")");
+			print(')');
 		} else {
 			print("true");
 		}
 
 		print(" do ");
-		onLoopStart();
+		onLoopStart(ctx.body);
 		printWithoutDoEnd(ctx.body);
 		onLoopEnd();
 
 		if (ctx.after != null) {
-			print(" ");
+			print(' ');
 			print(ctx.after);
 			print("; ");
 		}
@@ -227,101 +521,42 @@ final class LuaJSToLuaConverter {
 	}
 
 	private boolean printOptimizedLoop(LuaJSSyntaxParser.ForContext ctx) {
-		//for (let x = start_number; x (<=|>=|<|>) limit_number; x++|x+=step_number|x--|x-=step_number) statement
-
-		if (!(ctx.init instanceof LuaJSSyntaxParser.LocalVariableDeclarationContext)) {
-			return false;
-		}
-
-		LuaJSSyntaxParser.LocalVariableDeclarationContext var = (LuaJSSyntaxParser.LocalVariableDeclarationContext) ctx.init;
-
-		if (var.namelist().NAME().size() != 1) {
-			return false;
-		}
-
-		if (var.explist() == null || var.explist().exp().size() != 1) {
-			return false;
-		}
-
-		if (!(var.explist().exp(0) instanceof LuaJSSyntaxParser.NumberLiteralContext)) {
-			return false;
-		}
-
-		String name = var.namelist().NAME(0).getText();
-		String start = var.explist().exp(0).getText();
-
-		if (!(ctx.exp() instanceof LuaJSSyntaxParser.ComparisonOperatorContext)) {
-			return false;
-		}
-
-		LuaJSSyntaxParser.ComparisonOperatorContext comp = (LuaJSSyntaxParser.ComparisonOperatorContext) ctx.exp();
-
-		if (!(comp.exp(0) instanceof LuaJSSyntaxParser.VarExpressionContext)) {
-			return false;
-		}
-
-		if (!(comp.exp(1) instanceof LuaJSSyntaxParser.NumberLiteralContext)) {
-			return false;
-		}
-
-		if (!comp.exp(0).getText().equals(name)) {
-			return false;
-		}
-
-		String op = comp.op.getText();
-
-		if (!op.contains(">") && !op.contains("<")) {
-			return false;
-		}
+		NumericForLoop loop = NumericForLoop.of(ctx, this.constantFolder);
 
-		if (!op.contains("=")) {
+		if (loop == null) {
 			return false;
 		}
 
-		String stop = comp.exp(1).getText();
-
-		String step;
+		print("for ");
+		print(getName(loop.name, ctx.body));
+		print(" = ");
+		print(loop.start);
+		print(", ");
 
-		if (ctx.after instanceof LuaJSSyntaxParser.IncrementContext) {
-			step = "1";
-		} else if (ctx.after instanceof LuaJSSyntaxParser.DecrementContext) {
-			step = "-1";
+		if (loop.limitValue != null) {
+			line(loop.limit.start);
+			print(loop.limitValue);
+		} else if (loop.limitRounding != null) {
+			print(helper(loop.limitRounding));
+			print('(');
+			print(loop.limit);
+			print(')');
+		} else if (loop.limitOffset != 0 && !isPrimary(loop.limit) && !(loop.limit instanceof LuaJSSyntaxParser.UnaryOperatorContext)) {
+			print('(');
+			print(loop.limit);
+			print(')');
 		} else {
-			LuaJSSyntaxParser.AssginmentOperatorContext after = (LuaJSSyntaxParser.AssginmentOperatorContext) ctx.after;
-
-			String assignOp = after.assignmentOperator().getText();
-
-			if (!assignOp.equals("+=") && !assignOp.equals("-=")) {
-				return false;
-			}
-
-			if (!after.var().getText().equals(name)) {
-				return false;
-			}
-
-			if (!(after.exp() instanceof LuaJSSyntaxParser.NumberLiteralContext)) {
-				return false;
-			}
-
-			String stepNumber = after.exp().getText();
-
-			step = assignOp.equals("-=") ? "-" + stepNumber : stepNumber;
+			print(loop.limit);
 		}
 
-		if (step == null) {
-			return false;
+		if (loop.limitOffset != 0) {
+			print(loop.limitOffset < 0 ? " - 1" : " + 1");
 		}
 
-		print("for ");
-		print(name);
-		print(" = ");
-		print(start);
 		print(", ");
-		print(stop);
-		print(", ");
-		print(step);
+		print(loop.step);
 		print(" do ");
-		onLoopStart();
+		onLoopStart(ctx.body);
 		printWithoutDoEnd(ctx.body);
 		onLoopEnd();
 		print(" end");
@@ -335,31 +570,68 @@ final class LuaJSToLuaConverter {
 		print(" in ");
 		print(ctx.exp());
 		print(" do ");
-		onLoopStart();
+		onLoopStart(ctx.statement());
 		printWithoutDoEnd(ctx.statement());
 		onLoopEnd();
 		print(" end");
 	}
 
 	private void print(LuaJSSyntaxParser.ForOfContext ctx) {
+		if (this.numericForOf) {
+			printNumericForOf(ctx);
+			return;
+		}
+
 		print("for ");
 
 		if (ctx.NAME().size() > 1) {
 			print(ctx.NAME(1));
 		} else {
-			print("_");
+			print('_');
 		}
 
 		print(", ");
 		print(ctx.NAME(0));
 
-		print(" in ipairs(");
+		print(" in ");
+		print(helper("ipairs"));
+		print('(');
 		print(ctx.exp());
 		print(") do ");
-		onLoopStart();
+		onLoopStart(ctx.statement());
+		printWithoutDoEnd(ctx.statement());
+		onLoopEnd();
+		print(" end");
+	}
+
+	private void printNumericForOf(LuaJSSyntaxParser.ForOfContext ctx) {
+		// Names are unique among enclosing loops, since the level of this loop is not used by them
+		String suffix = this.sourceId.get() + "_" + (this.loopLevel + 1);
+		String list = "list_" + suffix;
+		String index = ctx.NAME().size() > 1 ? getName(ctx.NAME(1)) : "i_" + suffix;
+
+		synthetic(ctx.start);
+
+		print("do local ");
+		print(list);
+		print(" = ");
+		print(ctx.exp());
+		print("; for ");
+		print(index);
+		print(" = 1, #");
+		print(list);
+		print(" do local ");
+		print(ctx.NAME(0));
+		print(" = ");
+		print(list);
+		print('[');
+		print(index);
+		print("]; ");
+		onLoopStart(ctx.statement());
 		printWithoutDoEnd(ctx.statement());
 		onLoopEnd();
 		print(" end");
+		print(" end");
 	}
 
 	private void print(LuaJSSyntaxParser.FunctionDeclarationContext ctx) {
@@ -367,13 +639,13 @@ final class LuaJSToLuaConverter {
 
 		for (int i = 0; i < ctx.funcname().NAME().size(); i++) {
 			if (i > 0) {
-				print(":");
+				print(':');
 			}
 
 			print(ctx.funcname().NAME().get(i));
 		}
 
-		print("(");
+		print('(');
 
 		if (ctx.namelist() != null) {
 			print(ctx.namelist());
@@ -386,24 +658,52 @@ final class LuaJSToLuaConverter {
 
 	private void print(LuaJSSyntaxParser.TryCatchContext ctx) {
 		line(ctx.start);
+		synthetic(ctx.start);
 		print("do local ");
 
-		String suffix = this.sourceHash.substring(0, 8) + "_" + this.nextStatusVarIndex++;
+		int index = this.nextStatusVarIndex++;
+
+		String suffix = this.sourceId.get() + "_" + index;
 
 		String resName = "res_" + suffix;
 		String eName = "e_" + suffix;
 
+		List<String> parameters = this.hoistedTryCatches.get(ctx);
+
+		if (parameters != null) {
+			printHoistedTryBody(ctx, index, parameters);
+
+			print("local ");
+		}
+
 		print(resName);
 		print(", ");
 		print(eName);
-		print(" = pcall(function() ");
+		print(" = ");
+		print(helper("pcall"));
 
-		print(ctx.block(0).statement());
+		if (parameters != null) {
+			print('(');
+			print("f_" + suffix);
+
+			for (String parameter : parameters) {
+				print(", ");
+				print(getName(parameter, ctx));
+			}
+
+			print(')');
+		} else {
+			print("(function() ");
+			printTryBody(ctx);
+			print(" end)");
+		}
+
+		synthetic(ctx.NAME().getSymbol());
 
-		print(" end); if not ");
+		print("; if not ");
 		print(resName);
 		print(" then local ");
-		print(ctx.NAME().getText());
+		print(getName(ctx.NAME()));
 		print(" = ");
 		print(eName);
 		print("; ");
@@ -413,45 +713,238 @@ final class LuaJSToLuaConverter {
 		print(" end end");
 	}
 
+	/**
+	 * Prints the body as a function that is created on the first execution of the statement and stored in the table of hoisted functions.
+	 * Locals used by the body are passed as arguments, so the function captures nothing.
+	 */
+	private void printHoistedTryBody(LuaJSSyntaxParser.TryCatchContext ctx, int index, List<String> parameters) {
+		String functionName = "f_" + this.sourceId.get() + "_" + index;
+		String slot = getTryFunctionTable() + "[" + index + "]";
+
+		print(functionName);
+		print(" = ");
+		print(slot);
+		print("; if not ");
+		print(functionName);
+		print(" then ");
+		print(functionName);
+		print(" = function(");
+
+		for (int i = 0; i < parameters.size(); i++) {
+			if (i > 0) {
+				print(", ");
+			}
+
+			print(getName(parameters.get(i), ctx));
+		}
+
+		print(") ");
+		printTryBody(ctx);
+		print(" end; ");
+		print(slot);
+		print(" = ");
+		print(functionName);
+		print(" end; ");
+	}
+
+	private void printTryBody(LuaJSSyntaxParser.TryCatchContext ctx) {
+		int previous = this.tryLoopLevel;
+
+		this.tryLoopLevel = this.loopLevel;
+
+		print(ctx.block(0).statement());
+
+		this.tryLoopLevel = previous;
+	}
+
+	private void checkNotLeavingTry(ParserRuleContext ctx, String statement) {
+		if (this.loopLevel == this.tryLoopLevel) {
+			throw new InvalidSyntaxException(ctx.start.getLine(), ctx.start.getCharPositionInLine(), statement + " can not leave try block", null);
+		}
+	}
+
+	private String getTryFunctionTable() {
+		return "try_" + this.sourceId.get();
+	}
+
 	private void print(LuaJSSyntaxParser.ThrowContext ctx) {
 		line(ctx.start);
-		print("error(");
+		print(helper("error"));
+		print('(');
 		print(ctx.exp());
-		print(")");
+		print(')');
 	}
 
 	private void print(LuaJSSyntaxParser.DecrementContext ctx) {
+		boolean cached = startUpdate(ctx.var());
+
 		print(ctx.var());
 		print(" = ");
 		print(ctx.var());
 		print(" - 1");
+
+		endUpdate(ctx.var(), cached);
 	}
 
 	private void print(LuaJSSyntaxParser.IncrementContext ctx) {
+		boolean cached = startUpdate(ctx.var());
+
 		print(ctx.var());
 		print(" = ");
 		print(ctx.var());
 		print(" + 1");
+
+		endUpdate(ctx.var(), cached);
 	}
 
-	// endregion
+	/**
+	 * Starts printing of a statement reading and assigning the var. If the object or the key of the var are not a name or a literal,
+	 * they are stored into locals first, so they are evaluated once, like in an assignment.
+	 * @return Whether the var is printed using the locals, and {@link #endUpdate} must close the block declaring them.
+	 */
+	private boolean startUpdate(LuaJSSyntaxParser.VarContext var) {
+		boolean cacheObject = isObjectCached(var);
+		boolean cacheKey = isKeyCached(var);
 
-	// region Expressions
+		if (!cacheObject && !cacheKey) {
+			return false;
+		}
 
-	private void print(LuaJSSyntaxParser.ParenthesisExpressionContext ctx) {
-		print("(");
-		print(ctx.exp());
-		print(")");
-	}
+		LuaJSSyntaxParser.VarSuffixContext last = var.varSuffix(var.varSuffix().size() - 1);
 
-	private void print(LuaJSSyntaxParser.LiteralContext ctx) {
-		print(ctx.getText());
-	}
+		print("do local ");
 
-	private void print(LuaJSSyntaxParser.StringLiteralContext ctx) {
-		StringBuilder builder = new StringBuilder();
+		if (cacheObject) {
+			print(getObjectLocal());
+		}
 
-		String text = ctx.getText();
+		if (cacheKey) {
+			if (cacheObject) {
+				print(", ");
+			}
+
+			print(getKeyLocal());
+		}
+
+		print(" = ");
+
+		if (cacheObject) {
+			print(var, var.varSuffix().size() - 1);
+
+			for (LuaJSSyntaxParser.NameAndArgsContext arg : last.nameAndArgs()) {
+				print(arg);
+			}
+		}
+
+		if (cacheKey) {
+			if (cacheObject) {
+				print(", ");
+			}
+
+			print(last.exp());
+		}
+
+		print("; ");
+
+		this.cachedVars.add(var);
+
+		return true;
+	}
+
+	private void endUpdate(LuaJSSyntaxParser.VarContext var, boolean cached) {
+		if (cached) {
+			this.cachedVars.remove(var);
+
+			print(" end");
+		}
+	}
+
+	/**
+	 * Prints the var using the locals declared by {@link #startUpdate}.
+	 */
+	private void printCached(LuaJSSyntaxParser.VarContext var) {
+		LuaJSSyntaxParser.VarSuffixContext last = var.varSuffix(var.varSuffix().size() - 1);
+
+		if (isObjectCached(var)) {
+			print(getObjectLocal());
+		} else {
+			print(var.NAME());
+		}
+
+		if (isKeyCached(var)) {
+			print('[');
+			print(getKeyLocal());
+			print(']');
+		} else if (last.exp() != null) {
+			print('[');
+			print(last.exp());
+			print(']');
+		} else {
+			print('.');
+			print(last.NAME());
+		}
+	}
+
+	private boolean isObjectCached(LuaJSSyntaxParser.VarContext var) {
+		List<LuaJSSyntaxParser.VarSuffixContext> suffixes = var.varSuffix();
+
+		return !suffixes.isEmpty() && (var.NAME() == null || suffixes.size() > 1 || !suffixes.get(suffixes.size() - 1).nameAndArgs().isEmpty());
+	}
+
+	private boolean isKeyCached(LuaJSSyntaxParser.VarContext var) {
+		List<LuaJSSyntaxParser.VarSuffixContext> suffixes = var.varSuffix();
+
+		if (suffixes.isEmpty()) {
+			return false;
+		}
+
+		LuaJSSyntaxParser.ExpContext key = suffixes.get(suffixes.size() - 1).exp();
+
+		return key != null && !isSimpleKey(key);
+	}
+
+	private String getObjectLocal() {
+		return "obj_" + this.sourceId.get();
+	}
+
+	private String getKeyLocal() {
+		return "key_" + this.sourceId.get();
+	}
+
+	/**
+	 * Returns whether the key is cheaper to evaluate twice than to store into a local.
+	 */
+	private boolean isSimpleKey(LuaJSSyntaxParser.ExpContext exp) {
+		if (exp instanceof LuaJSSyntaxParser.VarExpressionContext) {
+			LuaJSSyntaxParser.VarContext var = ((LuaJSSyntaxParser.VarExpressionContext) exp).var();
+
+			return var.NAME() != null && var.varSuffix().isEmpty();
+		}
+
+		return exp instanceof LuaJSSyntaxParser.LiteralContext
+				|| exp instanceof LuaJSSyntaxParser.NumberLiteralContext
+				|| exp instanceof LuaJSSyntaxParser.StringLiteralContext
+				|| isFoldable(exp) && this.constantFolder.evaluate(exp) != null;
+	}
+
+	// endregion
+
+	// region Expressions
+
+	private void print(LuaJSSyntaxParser.ParenthesisExpressionContext ctx) {
+		print('(');
+		print(ctx.exp());
+		print(')');
+	}
+
+	private void print(LuaJSSyntaxParser.LiteralContext ctx) {
+		print(ctx.getText());
+	}
+
+	private void print(LuaJSSyntaxParser.StringLiteralContext ctx) {
+		StringBuilder builder = new StringBuilder();
+
+		String text = ctx.getText();
 
 		builder.append(text.charAt(0));
 
@@ -470,7 +963,7 @@ final class LuaJSToLuaConverter {
 
 		builder.append(text.charAt(text.length() - 1));
 
-		print(builder.toString());
+		printLiteral(builder.toString());
 	}
 
 	private void print(LuaJSSyntaxParser.NumberLiteralContext ctx) {
@@ -530,43 +1023,62 @@ final class LuaJSToLuaConverter {
 	}
 
 	private void print(LuaJSSyntaxParser.TableExpressionContext ctx) {
-		print("{");
+		print('{');
 
 		if (ctx.table().entries() != null) {
-			printCommaSeparated(ctx.table().entries().entry(), this::print);
+			printCommaSeparated(ctx.table().entries().entry());
 		}
 
-		print("}");
+		print('}');
 	}
 
 	private void print(LuaJSSyntaxParser.ListExpressionContext ctx) {
-		print("{");
+		print('{');
 
 		if (ctx.list().elements() != null) {
-			printCommaSeparated(ctx.list().elements().exp(), this::print);
+			printCommaSeparated(ctx.list().elements().exp());
 		}
 
-		print("}");
+		print('}');
 	}
 
 	private void print(LuaJSSyntaxParser.PowerOperatorContext ctx) {
-		print(ctx.exp(0), ctx.op, ctx.exp(1));
+		LuaJSSyntaxParser.ExpContext left = ctx.exp(0);
+
+		// Folding the operand would change the result, since Lua applies it after the power
+		if (this.foldConstants && ConstantFolder.isAppliedAfterPower(left)) {
+			line(left.start);
+			left.accept(this.dispatcher);
+			print(' ');
+			line(ctx.op);
+			print("^ ");
+			print(ctx.exp(1));
+			return;
+		}
+
+		print(left, ctx.op, ctx.exp(1));
 	}
 
 	private void print(LuaJSSyntaxParser.UnaryOperatorContext ctx) {
 		String op = ctx.op.getText();
 
 		if (op.equals("~")) {
-			print("bit32.bnot(");
+			if (this.target == ConversionOptions.Target.LUA_53) {
+				print("(~");
+			} else {
+				print(helper(getBitwiseLibrary() + ".bnot"));
+				print('(');
+			}
+
 			print(ctx.exp());
-			print(")");
+			print(')');
 			return;
 		}
 
 		if (op.equals("!")) {
 			print("(not ");
 			print(ctx.exp());
-			print(")");
+			print(')');
 			return;
 		}
 
@@ -617,25 +1129,49 @@ final class LuaJSToLuaConverter {
 	// endregion
 
 	private void print(List<LuaJSSyntaxParser.StatementContext> statements) {
-		for (int i = 0; i < statements.size(); i++) {
-			print(statements.get(i));
-			print(";");
+		boolean first = true;
 
-			if (i < statements.size() - 1) {
-				print(" ");
+		for (LuaJSSyntaxParser.StatementContext statement : statements) {
+			if (isRemoved(statement)) {
+				continue;
 			}
+
+			if (!first) {
+				print(' ');
+			}
+
+			print(statement);
+			print(';');
+
+			first = false;
 		}
 	}
 
+	private boolean isRemoved(LuaJSSyntaxParser.StatementContext ctx) {
+		return this.deadCode != null && this.deadCode.isRemoved(ctx);
+	}
+
 	private void print(LuaJSSyntaxParser.NamelistContext ctx) {
-		printCommaSeparated(ctx.NAME(), this::print);
+		printCommaSeparated(ctx.NAME());
 	}
 
 	private void print(LuaJSSyntaxParser.VarlistContext ctx) {
-		printCommaSeparated(ctx.var(), this::print);
+		printCommaSeparated(ctx.var());
 	}
 
 	private void print(LuaJSSyntaxParser.VarContext ctx) {
+		if (this.cachedVars.contains(ctx)) {
+			printCached(ctx);
+			return;
+		}
+
+		print(ctx, ctx.varSuffix().size());
+	}
+
+	/**
+	 * Prints the var with only the specified count of its suffixes.
+	 */
+	private void print(LuaJSSyntaxParser.VarContext ctx, int suffixCount) {
 		int offset;
 
 		if (ctx.NAME() != null) {
@@ -644,15 +1180,15 @@ final class LuaJSToLuaConverter {
 			offset = 0;
 		} else {
 			line(ctx.exp().start);
-			print("(");
+			print('(');
 			print(ctx.exp());
-			print(")");
+			print(')');
 			print(ctx.varSuffix(0));
 
 			offset = 1;
 		}
 
-		for (int i = offset; i < ctx.varSuffix().size(); i++) {
+		for (int i = offset; i < suffixCount; i++) {
 			print(ctx.varSuffix(i));
 		}
 	}
@@ -666,12 +1202,12 @@ final class LuaJSToLuaConverter {
 
 		if (ctx.exp() != null) {
 			line(ctx.exp().start);
-			print("[");
+			print('[');
 			print(ctx.exp());
-			print("]");
+			print(']');
 		} else {
 			line(ctx.NAME().getSymbol());
-			print(".");
+			print('.');
 			print(ctx.NAME());
 		}
 	}
@@ -680,7 +1216,7 @@ final class LuaJSToLuaConverter {
 		line(ctx.start);
 
 		if (ctx.NAME() != null) {
-			print(":");
+			print(':');
 			print(ctx.NAME());
 		}
 
@@ -689,29 +1225,29 @@ final class LuaJSToLuaConverter {
 
 	private void print(LuaJSSyntaxParser.ArgsContext ctx) {
 		line(ctx.start);
-		print("(");
+		print('(');
 
 		if (ctx.explist() != null) {
 			print(ctx.explist());
 		}
 
-		print(")");
+		print(')');
 	}
 
 	private void print(LuaJSSyntaxParser.ExplistContext explist) {
-		printCommaSeparated(explist.exp(), this::print);
+		printCommaSeparated(explist.exp());
 	}
 
 	private void print(LuaJSSyntaxParser.EntryContext ctx) {
 		if (ctx.NAME() != null) {
 			print(ctx.NAME());
 		} else {
-			print("[");
+			print('[');
 			print(ctx.key_expr().exp());
-			print("]");
+			print(']');
 		}
 
-		print("=");
+		print('=');
 		print(ctx.exp());
 	}
 
@@ -726,23 +1262,13 @@ final class LuaJSToLuaConverter {
 			op = op.substring(0, op.length() - 1);
 		}
 
-		String call = null;
+		String call = getBitwiseFunction(op);
+
+		boolean bitwise = call != null;
 
 		switch (op) {
-			case "&":
-				call = "bit32.band";
-				break;
-			case "|":
-				call = "bit32.bor";
-				break;
 			case "^":
-				call = "bit32.bxor";
-				break;
-			case "<<":
-				call = "bit32.lshift";
-				break;
-			case ">>":
-				call = "bit32.rshift";
+				op = "~";
 				break;
 			case "**":
 				op = "^";
@@ -758,17 +1284,33 @@ final class LuaJSToLuaConverter {
 				break;
 		}
 
-		boolean wrapLeft = op.equals("..") && !isConcatOrString(left);
 		boolean wrapRight = op.equals("..") && !isConcatOrString(right);
+		boolean toStringRight = wrapRight;
+
+		if (bitwise) {
+			if (this.target == ConversionOptions.Target.LUA_53) {
+				call = null;
+				// Right side of the compound assignment is evaluated before the operator
+				wrapRight = compound && !isPrimary(right);
+			} else {
+				call = helper(getBitwiseLibrary() + "." + call);
+			}
+		} else if (compound && !op.equals("..")) {
+			wrapRight = !isPrimary(right);
+		}
+
+		boolean wrapLeft = op.equals("..") && !isConcatOrString(left);
 
 		if (call != null) {
 			line(opToken);
 			print(call);
-			print("(");
+			print('(');
 		}
 
 		if (wrapLeft) {
-			print("tostring(");
+			synthetic(left.start);
+			print(helper("tostring"));
+			print('(');
 		}
 
 		if (left instanceof LuaJSSyntaxParser.VarContext) {
@@ -778,43 +1320,76 @@ final class LuaJSToLuaConverter {
 		}
 
 		if (wrapLeft) {
-			print(")");
+			print(')');
 		}
 
 		if (call != null) {
 			print(", ");
 			print(right);
-			print(")");
+			print(')');
 		} else {
-			print(" ");
+			print(' ');
 			line(opToken);
 			print(op);
-			print(" ");
+			print(' ');
 
 			if (wrapRight) {
-				print("tostring(");
+				if (toStringRight) {
+					print(helper("tostring"));
+				}
+
+				print('(');
 			}
 
 			print(right);
 
 			if (wrapRight) {
-				print(")");
+				print(')');
 			}
 		}
 
 	}
 
-	private void print(Token token) {
-		line(token);
-		print(token.getText());
+	private void print(TerminalNode node) {
+		line(node.getSymbol());
+		print(getName(node));
 	}
 
-	private void print(TerminalNode node) {
-		print(node.getSymbol());
+	/**
+	 * Returns the name as it is printed, which is shorter for locals and parameters when minifying.
+	 */
+	private String getName(TerminalNode node) {
+		String name = this.nameMinifier != null ? this.nameMinifier.getName(node) : null;
+
+		return name != null ? name : node.getText();
 	}
 
-	private void onLoopStart() {
+	/**
+	 * Returns the name of the local visible at the start of the statement as it is printed.
+	 */
+	private String getName(String name, LuaJSSyntaxParser.StatementContext at) {
+		return this.nameMinifier != null ? this.nameMinifier.getName(name, at) : name;
+	}
+
+	private void onLoopStart(LuaJSSyntaxParser.StatementContext body) {
 		this.loopLevel++;
+
+		if (this.target != ConversionOptions.Target.LUA_51 || !containsJump(body, LuaJSSyntaxParser.ContinueContext.class)) {
+			return;
+		}
+
+		// Lua 5.1 has no goto, so continue exits a repeat block wrapping the body
+		this.repeatLoops.add(this.loopLevel);
+
+		if (containsJump(body, LuaJSSyntaxParser.BreakContext.class)) {
+			this.flaggedBreakLoops.add(this.loopLevel);
+
+			print("local ");
+			print(getBreakFlag());
+			print(" = false; ");
+		}
+
+		print("repeat ");
 	}
 
 	private void onLoopEnd() {
@@ -824,18 +1399,113 @@ final class LuaJSToLuaConverter {
 			print("::;");
 		}
 
+		if (this.repeatLoops.remove(this.loopLevel)) {
+			print(" until true");
+
+			if (this.flaggedBreakLoops.remove(this.loopLevel)) {
+				print("; if ");
+				print(getBreakFlag());
+				print(" then break end");
+			}
+		}
+
 		this.loopLevel--;
 	}
 
+	private String getBreakFlag() {
+		return "break_" + this.sourceId.get() + "_" + this.loopLevel;
+	}
+
+	/**
+	 * Returns whether the tree contains a break or continue statement of the loop it belongs to,
+	 * that is, not inside a nested loop or function.
+	 */
+	static boolean containsJump(ParseTree tree, Class<? extends LuaJSSyntaxParser.StatementContext> type) {
+		if (type.isInstance(tree)) {
+			return true;
+		}
+
+		if (tree instanceof LuaJSSyntaxParser.WhileContext
+				|| tree instanceof LuaJSSyntaxParser.DoWhileContext
+				|| tree instanceof LuaJSSyntaxParser.ForContext
+				|| tree instanceof LuaJSSyntaxParser.ForInContext
+				|| tree instanceof LuaJSSyntaxParser.ForOfContext
+				|| tree instanceof LuaJSSyntaxParser.FunctionDeclarationContext
+				|| tree instanceof LuaJSSyntaxParser.FunctionLiteralContext
+				|| tree instanceof LuaJSSyntaxParser.ArrowFunctionLiteralContext) {
+			return false;
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			if (containsJump(tree.getChild(i), type)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	private String getContinueLabel() {
-		return "continue_" + this.sourceHash.substring(0, 8) + "_" + this.loopLevel;
+		return "continue_" + this.sourceId.get() + "_" + this.loopLevel;
+	}
+
+	// region Helpers
+
+	/**
+	 * Returns the expression to call the library function with, which is its local alias if library functions have aliases.
+	 * Must be called only when the result is printed, since the alias is declared for each used function.
+	 * @param name Global name of the function, like {@code tostring} or {@code bit32.band}.
+	 */
+	private String helper(String name) {
+		if (!this.localHelpers) {
+			return name;
+		}
+
+		this.hoistedHelpers.add(name);
+
+		return getHelperAlias(name);
+	}
+
+	private String getHelperAlias(String name) {
+		return name.replace('.', '_') + "_" + this.sourceId.get();
+	}
+
+	/**
+	 * Returns declaration of locals for all used library functions, or an empty string if none are used.
+	 * Inserted on the first line, so line numbers are preserved.
+	 */
+	private String getHelperAliases() {
+		if (this.hoistedHelpers.isEmpty()) {
+			return "";
+		}
+
+		List<String> aliases = new ArrayList<>();
+
+		for (String name : this.hoistedHelpers) {
+			aliases.add(getHelperAlias(name));
+		}
+
+		// Inserted code is not minified by the printer; the separator keeps the first statement from being parsed as a call
+		if (this.minify) {
+			return "local " + String.join(",", aliases) + "=" + String.join(",", this.hoistedHelpers) + ";";
+		}
+
+		return "local " + String.join(", ", aliases) + " = " + String.join(", ", this.hoistedHelpers) + "; ";
 	}
 
+	// endregion
+
 	// Utils
 
-	private <T extends ParseTree> void printCommaSeparated(@NonNull List<T> list, @NonNull Consumer<T> printer) {
+	private void printCommaSeparated(@NonNull List<? extends ParseTree> list) {
 		for (int i = 0; i < list.size(); i++) {
-			printer.accept(list.get(i));
+			ParseTree tree = list.get(i);
+
+			if (tree instanceof LuaJSSyntaxParser.ExpContext) {
+				print((LuaJSSyntaxParser.ExpContext) tree);
+			} else {
+				tree.accept(this.dispatcher);
+			}
 
 			if (i < list.size() - 1) {
 				print(", ");
@@ -843,41 +1513,425 @@ final class LuaJSToLuaConverter {
 		}
 	}
 
-	private static boolean isConcatOrString(ParserRuleContext exp) {
-		return exp instanceof LuaJSSyntaxParser.ConcatOperatorContext || exp instanceof LuaJSSyntaxParser.StringLiteralContext;
+	private String getBitwiseLibrary() {
+		return this.target == ConversionOptions.Target.LUA_51 ? "bit" : "bit32";
+	}
+
+	/**
+	 * Returns name of the bitwise library function implementing the operator, or null if the operator is not bitwise.
+	 */
+	private static String getBitwiseFunction(String op) {
+		switch (op) {
+			case "&":
+				return "band";
+			case "|":
+				return "bor";
+			case "^":
+				return "bxor";
+			case "<<":
+				return "lshift";
+			case ">>":
+				return "rshift";
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Returns whether the expression is printed as a Lua expression that is not an operator, so it never needs parentheses.
+	 */
+	private boolean isPrimary(LuaJSSyntaxParser.ExpContext exp) {
+		if (isFoldable(exp)) {
+			ConstantFolder.Constant value = this.constantFolder.evaluate(exp);
+
+			// Negative numbers are already wrapped
+			if (value != null) {
+				return true;
+			}
+		}
+
+		return exp instanceof LuaJSSyntaxParser.ParenthesisExpressionContext
+				|| exp instanceof LuaJSSyntaxParser.LiteralContext
+				|| exp instanceof LuaJSSyntaxParser.NumberLiteralContext
+				|| exp instanceof LuaJSSyntaxParser.StringLiteralContext
+				|| exp instanceof LuaJSSyntaxParser.VarExpressionContext
+				|| exp instanceof LuaJSSyntaxParser.FunctionCallExpressionContext;
+	}
+
+	private boolean isConcatOrString(ParserRuleContext exp) {
+		if (exp instanceof LuaJSSyntaxParser.ConcatOperatorContext || exp instanceof LuaJSSyntaxParser.StringLiteralContext) {
+			return true;
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.ExpContext && isFoldable((LuaJSSyntaxParser.ExpContext) exp)) {
+			ConstantFolder.Constant value = this.constantFolder.evaluate((LuaJSSyntaxParser.ExpContext) exp);
+
+			return value != null && value.type == ConstantFolder.Constant.Type.STRING;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether the expression may be replaced with its value. Literals are printed as they are written,
+	 * and so is negation of a number literal, which is already as short as it can be.
+	 */
+	private boolean isFoldable(LuaJSSyntaxParser.ExpContext exp) {
+		if (!this.foldConstants) {
+			return false;
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.LiteralContext || exp instanceof LuaJSSyntaxParser.NumberLiteralContext || exp instanceof LuaJSSyntaxParser.StringLiteralContext) {
+			return false;
+		}
+
+		return !(exp instanceof LuaJSSyntaxParser.UnaryOperatorContext
+				&& ((LuaJSSyntaxParser.UnaryOperatorContext) exp).op.getText().equals("-")
+				&& ((LuaJSSyntaxParser.UnaryOperatorContext) exp).exp() instanceof LuaJSSyntaxParser.NumberLiteralContext);
+	}
+
+	private void printConstant(ConstantFolder.Constant value) {
+		String lua = value.toLua();
+
+		// Negative numbers are wrapped, so they are not parsed as a part of an enclosing operator, like "-2 ^ 2" or "- -2"
+		if (lua.startsWith("-")) {
+			print('(');
+			printLiteral(lua);
+			print(')');
+		} else {
+			printLiteral(lua);
+		}
 	}
 
 	// Dynamic dispatching
 
 	private void print(LuaJSSyntaxParser.StatementContext ctx) {
 		line(ctx.start);
-		dispatch(ctx, LuaJSSyntaxParser.StatementContext.class);
+
+		List<String> buffered = this.bufferedLoops.get(ctx);
+
+		if (buffered != null) {
+			printBufferedLoop(ctx, buffered);
+			return;
+		}
+
+		ctx.accept(this.dispatcher);
 	}
 
 	private void print(LuaJSSyntaxParser.ExpContext ctx) {
 		line(ctx.start);
-		dispatch(ctx, LuaJSSyntaxParser.ExpContext.class);
-	}
 
-	private <T extends ParserRuleContext> void dispatch(T argument, Class<T> baseClass) {
-		try {
-			//noinspection JavaReflectionMemberAccess
-			Method method = getClass().getDeclaredMethod("print", argument.getClass());
+		if (isFoldable(ctx)) {
+			ConstantFolder.Constant value = this.constantFolder.evaluate(ctx);
 
-			if (method.getParameterTypes()[0] == baseClass) {
-				throw new IllegalArgumentException("Invalid input");
+			if (value != null) {
+				printConstant(value);
+				return;
 			}
+		}
 
-			method.invoke(this, argument);
-		} catch (InvocationTargetException e) {
-			if (e.getTargetException() instanceof RuntimeException) {
-				throw (RuntimeException)e.getTargetException();
-			} else {
-				throw new RuntimeException(e);
-			}
-		} catch (ReflectiveOperationException e) {
-			throw new RuntimeException(e);
+		ctx.accept(this.dispatcher);
+	}
+
+	/**
+	 * Calls the print method matching the concrete type of the visited context.
+	 * Contexts that have no such method are rejected.
+	 */
+	private final class Dispatcher extends LuaJSSyntaxBaseVisitor<Void> {
+
+		@Override
+		public Void visitSemicolon(LuaJSSyntaxParser.SemicolonContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitBlockStatement(LuaJSSyntaxParser.BlockStatementContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitLocalVariableDeclaration(LuaJSSyntaxParser.LocalVariableDeclarationContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitGlobalVariableDeclaration(LuaJSSyntaxParser.GlobalVariableDeclarationContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitAssginmentOperator(LuaJSSyntaxParser.AssginmentOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitFunctionCall(LuaJSSyntaxParser.FunctionCallContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitLabelDeclaration(LuaJSSyntaxParser.LabelDeclarationContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitBreak(LuaJSSyntaxParser.BreakContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitContinue(LuaJSSyntaxParser.ContinueContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitGoto(LuaJSSyntaxParser.GotoContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitReturn(LuaJSSyntaxParser.ReturnContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitIf(LuaJSSyntaxParser.IfContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitWhile(LuaJSSyntaxParser.WhileContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitDoWhile(LuaJSSyntaxParser.DoWhileContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitFor(LuaJSSyntaxParser.ForContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitForIn(LuaJSSyntaxParser.ForInContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitForOf(LuaJSSyntaxParser.ForOfContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitFunctionDeclaration(LuaJSSyntaxParser.FunctionDeclarationContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitTryCatch(LuaJSSyntaxParser.TryCatchContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitThrow(LuaJSSyntaxParser.ThrowContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitIncrement(LuaJSSyntaxParser.IncrementContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitDecrement(LuaJSSyntaxParser.DecrementContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitParenthesisExpression(LuaJSSyntaxParser.ParenthesisExpressionContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitLiteral(LuaJSSyntaxParser.LiteralContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitNumberLiteral(LuaJSSyntaxParser.NumberLiteralContext ctx) {
+			print(ctx);
+			return null;
 		}
+
+		@Override
+		public Void visitStringLiteral(LuaJSSyntaxParser.StringLiteralContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitVarExpression(LuaJSSyntaxParser.VarExpressionContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitFunctionCallExpression(LuaJSSyntaxParser.FunctionCallExpressionContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitTableExpression(LuaJSSyntaxParser.TableExpressionContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitListExpression(LuaJSSyntaxParser.ListExpressionContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitFunctionLiteral(LuaJSSyntaxParser.FunctionLiteralContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitArrowFunctionLiteral(LuaJSSyntaxParser.ArrowFunctionLiteralContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitUnaryOperator(LuaJSSyntaxParser.UnaryOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitPowerOperator(LuaJSSyntaxParser.PowerOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitMulDivModOperator(LuaJSSyntaxParser.MulDivModOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitAddSubOperator(LuaJSSyntaxParser.AddSubOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitBitwiseShift(LuaJSSyntaxParser.BitwiseShiftContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitBitwiseAnd(LuaJSSyntaxParser.BitwiseAndContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitBitwiseXor(LuaJSSyntaxParser.BitwiseXorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitBitwiseOr(LuaJSSyntaxParser.BitwiseOrContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitConcatOperator(LuaJSSyntaxParser.ConcatOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitComparisonOperator(LuaJSSyntaxParser.ComparisonOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitAndOperator(LuaJSSyntaxParser.AndOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitOrOperator(LuaJSSyntaxParser.OrOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitTernaryOperator(LuaJSSyntaxParser.TernaryOperatorContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitVar(LuaJSSyntaxParser.VarContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitEntry(LuaJSSyntaxParser.EntryContext ctx) {
+			print(ctx);
+			return null;
+		}
+
+		@Override
+		public Void visitTerminal(TerminalNode node) {
+			print(node);
+			return null;
+		}
+
+		@Override
+		public Void visitChildren(RuleNode node) {
+			throw new IllegalArgumentException("Invalid input");
+		}
+
 	}
 
 }
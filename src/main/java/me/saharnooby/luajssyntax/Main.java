@@ -1,8 +1,19 @@
 package me.saharnooby.luajssyntax;
 
 import lombok.NonNull;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author saharNooby
@@ -10,32 +21,203 @@ import java.io.*;
  */
 public final class Main {
 
+	/**
+	 * Size of the in-memory tier of the cache in batch mode.
+	 * Each file is converted once per run, so memory only helps with duplicate sources.
+	 */
+	private static final int BATCH_CACHE_ENTRIES = 64;
+
+	/**
+	 * Time without new file system events after which changed files are converted in watch mode.
+	 */
+	private static final long WATCH_DEBOUNCE_MILLIS = 50;
+
 	public static void main(String[] args) throws IOException {
-		StringBuilder src = new StringBuilder();
+		Path outputRoot = null;
+		Path cacheDirectory = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean watch = false;
+		boolean bytecode = false;
+		Integer daemonPort = null;
+		List<String> inputs = new ArrayList<>();
 
-		try (Reader reader = new InputStreamReader(new BufferedInputStream(args.length > 0 ? new FileInputStream(new File(args[0])) : System.in))) {
-			readAllChars(reader, src);
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "-o":
+					outputRoot = Paths.get(requireValue(args, ++i, "-o"));
+					break;
+				case "-c":
+					cacheDirectory = Paths.get(requireValue(args, ++i, "-c"));
+					break;
+				case "-t":
+					threads = Integer.parseInt(requireValue(args, ++i, "-t"));
+					break;
+				case "--watch":
+					watch = true;
+					break;
+				case "--bytecode":
+					bytecode = true;
+					break;
+				case "--daemon":
+					daemonPort = Integer.parseInt(requireValue(args, ++i, "--daemon"));
+					break;
+				default:
+					if (args[i].startsWith("-") && args[i].length() > 1) {
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+					}
+
+					inputs.add(args[i]);
+			}
 		}
 
-		StringBuilder dest = new StringBuilder();
+		if (bytecode && (outputRoot != null || daemonPort != null)) {
+			throw new IllegalArgumentException("Option --bytecode is supported only when converting a single file");
+		}
+
+		if (daemonPort != null) {
+			serve(daemonPort, threads);
+		} else if (watch) {
+			if (outputRoot == null) {
+				throw new IllegalArgumentException("Option --watch requires an output directory");
+			}
+
+			watch(inputs, outputRoot, threads, cacheDirectory);
+		} else if (outputRoot != null) {
+			convertBatch(inputs, outputRoot, threads, cacheDirectory);
+		} else {
+			convertSingle(inputs, bytecode);
+		}
+	}
+
+	/**
+	 * Converts a single file or stdin, streaming the result into the destination file or stdout.
+	 * Files are read and written in UTF-8.
+	 * @param bytecode Whether to write a Lua 5.2 binary chunk instead of Lua code.
+	 */
+	private static void convertSingle(@NonNull List<String> args, boolean bytecode) throws IOException {
+		CharStream src = args.size() > 0 ? CharStreams.fromPath(Paths.get(args.get(0)), StandardCharsets.UTF_8) : CharStreams.fromStream(System.in, StandardCharsets.UTF_8);
+
+		if (bytecode) {
+			String chunkName = args.size() > 0 ? Paths.get(args.get(0)).getFileName().toString() : "stdin";
 
-		LuaJSToLua.convert(src.toString(), dest);
+			if (args.size() > 1) {
+				try (OutputStream out = Files.newOutputStream(Paths.get(args.get(1)))) {
+					LuaJSCompiler.compile(src, chunkName, out, false);
+				}
+			} else {
+				LuaJSCompiler.compile(src, chunkName, System.out, false);
 
-		if (args.length > 1) {
-			try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(args[1])))) {
-				writer.write(dest.toString());
+				System.out.flush();
+			}
+		} else if (args.size() > 1) {
+			try (OutputStream out = Files.newOutputStream(Paths.get(args.get(1)))) {
+				LuaJSToLua.convert(src, out);
 			}
 		} else {
-			System.out.println(dest);
+			LuaJSToLua.convert(src, (OutputStream) System.out);
+
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Converts all files matched by inputs in parallel, reporting per-file errors to stderr.
+	 * Exits with code 1 if any of files failed to convert.
+	 */
+	private static void convertBatch(@NonNull List<String> inputs, @NonNull Path outputRoot, int threads, Path cacheDirectory) throws IOException {
+		if (inputs.isEmpty()) {
+			throw new IllegalArgumentException("No source files, directories or globs specified");
+		}
+
+		Map<Path, Path> files = SourceFiles.collect(inputs, outputRoot);
+
+		ConversionCache cache = cacheDirectory != null ? new ConversionCache(BATCH_CACHE_ENTRIES, cacheDirectory) : null;
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		Map<Path, BatchResult> results;
+
+		try {
+			results = LuaJSBatchConverter.convertFiles(files, pool, cache);
+		} finally {
+			pool.shutdown();
+		}
+
+		int failed = report(results);
+
+		if (cache != null) {
+			System.err.println("Cache hits: " + cache.getDiskHits() + ", misses: " + cache.getMisses());
+		}
+
+		if (failed > 0) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Converts all files matched by inputs, then converts changed files again until the process is stopped.
+	 * The process is kept alive, so the lexer and the parser stay warmed up between conversions.
+	 */
+	private static void watch(@NonNull List<String> inputs, @NonNull Path outputRoot, int threads, Path cacheDirectory) throws IOException {
+		if (inputs.isEmpty()) {
+			throw new IllegalArgumentException("No source files, directories or globs specified");
+		}
+
+		ConversionCache cache = cacheDirectory != null ? new ConversionCache(BATCH_CACHE_ENTRIES, cacheDirectory) : null;
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try (SourceWatcher watcher = new SourceWatcher(inputs, outputRoot, pool, cache, WATCH_DEBOUNCE_MILLIS)) {
+			report(watcher.convertAll());
+
+			System.err.println("Watching for changes");
+
+			watcher.watch(Main::report);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Serves conversion requests until the process is stopped.
+	 * @see ConversionServer
+	 */
+	private static void serve(int port, int threads) throws IOException {
+		try (ConversionServer server = new ConversionServer(port, threads)) {
+			System.err.println("Listening on port " + server.getPort());
+
+			server.serve();
 		}
 	}
 
-	private static void readAllChars(@NonNull Reader reader, @NonNull StringBuilder out) throws IOException {
-		char[] buf = new char[8192];
-		int read;
-		while ((read = reader.read(buf)) != -1) {
-			out.append(buf, 0, read);
+	/**
+	 * Prints per-file errors and count of converted files to stderr.
+	 * @return Count of failed files.
+	 */
+	private static int report(@NonNull Map<Path, BatchResult> results) {
+		int failed = 0;
+
+		for (Map.Entry<Path, BatchResult> entry : results.entrySet()) {
+			Exception error = entry.getValue().getError();
+
+			if (error != null) {
+				System.err.println(entry.getKey() + ": " + error);
+
+				failed++;
+			}
 		}
+
+		System.err.println("Converted " + (results.size() - failed) + " of " + results.size() + " files");
+
+		return failed;
+	}
+
+	private static String requireValue(@NonNull String[] args, int index, @NonNull String option) {
+		if (index >= args.length) {
+			throw new IllegalArgumentException("Option " + option + " requires a value");
+		}
+
+		return args[index];
 	}
 
 }
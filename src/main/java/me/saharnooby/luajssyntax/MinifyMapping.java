@@ -0,0 +1,238 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps lines and names of locals of minified code back to the source, so Lua error messages and stack traces can be decoded.
+ * See {@code minify} of {@link ConversionOptions} and {@link LuaJSToLua#convert(org.antlr.v4.runtime.CharStream, Appendable, ConversionOptions, Appendable)}.
+ * <p>
+ * The mapping is written as text, one entry per line:
+ * <pre>
+ * line &lt;minified line&gt; &lt;source line&gt;
+ * local &lt;minified name&gt; &lt;source name&gt; &lt;first source line&gt; &lt;last source line&gt;
+ * </pre>
+ * Line entries are written for each minified line, in order. A local entry is written for each renamed local or parameter,
+ * with lines of its scope, starting with the line of its declaration.
+ * @author saharNooby
+ * @since 04:10 19.10.2026
+ */
+public final class MinifyMapping {
+
+	/**
+	 * Matches positions in messages, like {@code chunk:12:} or {@code <chunk:12>}.
+	 */
+	private static final Pattern POSITION = Pattern.compile(":(\\d+)([:>])");
+	/**
+	 * Matches names of locals in messages, like {@code local 'a'} or {@code upvalue 'b'}.
+	 */
+	private static final Pattern LOCAL = Pattern.compile("\\b(local|upvalue) '(\\w+)'");
+
+	private final int[] sourceLines;
+	private final List<Local> locals;
+
+	MinifyMapping(@NonNull int[] sourceLines, @NonNull List<Local> locals) {
+		this.sourceLines = sourceLines;
+		this.locals = locals;
+	}
+
+	/**
+	 * Reads a mapping written by {@link #write(Appendable)}. The reader is read until the end, but not closed.
+	 * @throws IllegalArgumentException When the mapping is invalid.
+	 */
+	public static MinifyMapping read(@NonNull Reader in) throws IOException {
+		BufferedReader reader = new BufferedReader(in);
+
+		int[] sourceLines = new int[16];
+		int count = 0;
+		List<Local> locals = new ArrayList<>();
+
+		String line;
+
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
+			}
+
+			String[] parts = line.split(" ");
+
+			try {
+				if (parts[0].equals("line") && parts.length == 3) {
+					if (Integer.parseInt(parts[1]) != count + 1) {
+						throw new IllegalArgumentException("Lines are not in order: " + line);
+					}
+
+					if (count == sourceLines.length) {
+						sourceLines = Arrays.copyOf(sourceLines, count * 2);
+					}
+
+					sourceLines[count++] = Integer.parseInt(parts[2]);
+				} else if (parts[0].equals("local") && parts.length == 5) {
+					locals.add(new Local(parts[1], parts[2], Integer.parseInt(parts[3]), Integer.parseInt(parts[4])));
+				} else {
+					throw new IllegalArgumentException("Invalid entry: " + line);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid entry: " + line, e);
+			}
+		}
+
+		return new MinifyMapping(Arrays.copyOf(sourceLines, count), locals);
+	}
+
+	/**
+	 * Writes the mapping as text.
+	 * @throws UncheckedIOException When out throws an IOException.
+	 */
+	public void write(@NonNull Appendable out) {
+		try {
+			for (int i = 0; i < this.sourceLines.length; i++) {
+				out.append("line ").append(Integer.toString(i + 1)).append(' ').append(Integer.toString(this.sourceLines[i])).append('\n');
+			}
+
+			for (Local local : this.locals) {
+				out.append("local ").append(local.name).append(' ').append(local.sourceName).append(' ')
+						.append(Integer.toString(local.firstLine)).append(' ').append(Integer.toString(local.lastLine)).append('\n');
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the source line the minified line starts with, or -1 if there is no such minified line.
+	 * @param line Minified line, starting from 1.
+	 */
+	public int getSourceLine(int line) {
+		return line >= 1 && line <= this.sourceLines.length ? this.sourceLines[line - 1] : -1;
+	}
+
+	/**
+	 * Returns the source name of the local or parameter with the minified name, visible at the source line,
+	 * or null if there is no such local, like when the name is a global.
+	 */
+	public String getSourceName(@NonNull String name, int sourceLine) {
+		Local result = null;
+
+		for (Local local : this.locals) {
+			// Of nested scopes, the inner one starts later
+			if (local.name.equals(name) && local.firstLine <= sourceLine && sourceLine <= local.lastLine
+					&& (result == null || local.firstLine >= result.firstLine)) {
+				result = local;
+			}
+		}
+
+		return result != null ? result.sourceName : null;
+	}
+
+	/**
+	 * Returns renamed locals and parameters, in order of declaration.
+	 */
+	public List<Local> getLocals() {
+		return Collections.unmodifiableList(this.locals);
+	}
+
+	/**
+	 * Replaces minified lines and names of locals in an error message or a stack trace with source ones.
+	 * Each line of the text is decoded using the first position in it, like {@code chunk:12:}.
+	 */
+	public String decode(@NonNull String text) {
+		StringBuilder result = new StringBuilder();
+
+		for (String line : text.split("\n", -1)) {
+			if (result.length() > 0) {
+				result.append('\n');
+			}
+
+			result.append(decodeLine(line));
+		}
+
+		return result.toString();
+	}
+
+	private String decodeLine(@NonNull String line) {
+		Matcher position = POSITION.matcher(line);
+
+		StringBuffer result = new StringBuffer();
+
+		int sourceLine = -1;
+
+		while (position.find()) {
+			int mapped = getSourceLine(Integer.parseInt(position.group(1)));
+
+			if (mapped == -1) {
+				continue;
+			}
+
+			if (sourceLine == -1) {
+				sourceLine = mapped;
+			}
+
+			position.appendReplacement(result, ":" + mapped + position.group(2));
+		}
+
+		position.appendTail(result);
+
+		if (sourceLine == -1) {
+			return result.toString();
+		}
+
+		Matcher local = LOCAL.matcher(result.toString());
+
+		StringBuffer decoded = new StringBuffer();
+
+		while (local.find()) {
+			String sourceName = getSourceName(local.group(2), sourceLine);
+
+			local.appendReplacement(decoded, sourceName != null ? local.group(1) + " '" + sourceName + "'" : Matcher.quoteReplacement(local.group()));
+		}
+
+		local.appendTail(decoded);
+
+		return decoded.toString();
+	}
+
+	/**
+	 * A renamed local or parameter.
+	 */
+	@Getter
+	public static final class Local {
+
+		/**
+		 * Name in minified code.
+		 */
+		private final String name;
+		/**
+		 * Name in the source.
+		 */
+		private final String sourceName;
+		/**
+		 * Line of the declaration in the source.
+		 */
+		private final int firstLine;
+		/**
+		 * Last source line of the scope of the local.
+		 */
+		private final int lastLine;
+
+		Local(@NonNull String name, @NonNull String sourceName, int firstLine, int lastLine) {
+			this.name = name;
+			this.sourceName = sourceName;
+			this.firstLine = firstLine;
+			this.lastLine = lastLine;
+		}
+
+	}
+
+}
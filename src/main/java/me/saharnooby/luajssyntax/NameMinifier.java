@@ -0,0 +1,442 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.*;
+
+/**
+ * Assigns short names to locals and parameters of the program, following scopes of the converted code.
+ * <p>
+ * Each declaration gets the name with the index equal to the count of declarations visible at it, so names of visible locals
+ * are always different, and no local is shadowed by another one by accident. Names of globals used by the program,
+ * names of implicit {@code self} parameters and keywords are never assigned.
+ * @author saharNooby
+ * @since 04:10 19.10.2026
+ */
+final class NameMinifier {
+
+	private static final Set<String> RESERVED = new HashSet<>(Arrays.asList(
+			"and", "break", "do", "else", "elseif", "end", "false", "for", "function", "goto", "if", "in",
+			"local", "nil", "not", "or", "repeat", "return", "then", "true", "until", "while",
+			// Globals of the standard library and of the converted code that are short enough to be assigned
+			"_G", "_ENV", "arg", "bit", "io", "os", "self"
+	));
+
+	private static final String FIRST_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+	private static final String NEXT_CHARS = FIRST_CHARS + "0123456789";
+
+	private final Map<TerminalNode, Declaration> resolved = new IdentityHashMap<>();
+	private final Map<LuaJSSyntaxParser.StatementContext, Position> positions = new IdentityHashMap<>();
+	private final List<Declaration> declarations = new ArrayList<>();
+	private final Set<String> globals = new HashSet<>();
+	/**
+	 * Assigned names by index.
+	 */
+	private final List<String> names = new ArrayList<>();
+	/**
+	 * Number of the next name in the sequence of all names.
+	 */
+	private int nextNumber;
+
+	private final ConversionOptions.Target target;
+
+	private Scope scope;
+
+	private NameMinifier(@NonNull ConversionOptions.Target target) {
+		this.target = target;
+	}
+
+	static NameMinifier analyze(@NonNull LuaJSSyntaxParser.ProgramContext program, @NonNull ConversionOptions.Target target) {
+		NameMinifier minifier = new NameMinifier(target);
+
+		minifier.scope = new Scope(null, program);
+		minifier.visit(program.statement());
+
+		return minifier;
+	}
+
+	/**
+	 * Returns the assigned name of the local or parameter, or null if the node is not a renamed variable.
+	 */
+	String getName(@NonNull TerminalNode node) {
+		Declaration declaration = this.resolved.get(node);
+
+		return declaration != null ? getName(declaration) : null;
+	}
+
+	/**
+	 * Returns the assigned name of the local or parameter with the source name, visible at the start of the statement,
+	 * or the source name if it is not a renamed local.
+	 */
+	String getName(@NonNull String name, @NonNull LuaJSSyntaxParser.StatementContext statement) {
+		Position position = this.positions.get(statement);
+
+		if (position == null) {
+			return name;
+		}
+
+		Scope scope = position.scope;
+		int count = position.count;
+
+		while (scope != null) {
+			for (int i = count - 1; i >= 0; i--) {
+				Declaration declaration = scope.declarations.get(i);
+
+				if (declaration.sourceName.equals(name)) {
+					return getName(declaration);
+				}
+			}
+
+			count = scope.parentCount;
+			scope = scope.parent;
+		}
+
+		return name;
+	}
+
+	/**
+	 * Returns renamed locals and parameters in order of declaration.
+	 */
+	List<MinifyMapping.Local> getLocals() {
+		List<MinifyMapping.Local> result = new ArrayList<>();
+
+		for (Declaration declaration : this.declarations) {
+			if (declaration.index != -1) {
+				result.add(new MinifyMapping.Local(getName(declaration), declaration.sourceName, declaration.line, declaration.scope.lastLine));
+			}
+		}
+
+		return result;
+	}
+
+	private String getName(@NonNull Declaration declaration) {
+		if (declaration.index == -1) {
+			return declaration.sourceName;
+		}
+
+		// Names are generated after the whole program is analyzed, when all globals are known
+		while (this.names.size() <= declaration.index) {
+			this.names.add(nextName());
+		}
+
+		return this.names.get(declaration.index);
+	}
+
+	private String nextName() {
+		while (true) {
+			String name = toName(this.nextNumber++);
+
+			if (!RESERVED.contains(name) && !this.globals.contains(name)) {
+				return name;
+			}
+		}
+	}
+
+	/**
+	 * Returns the name with the number in the sequence of all names: a, b, ..., Z, aa, ab, ..., a9, ba, ...
+	 */
+	static String toName(int number) {
+		StringBuilder builder = new StringBuilder();
+
+		builder.append(FIRST_CHARS.charAt(number % FIRST_CHARS.length()));
+
+		number /= FIRST_CHARS.length();
+
+		while (number > 0) {
+			number--;
+
+			builder.append(NEXT_CHARS.charAt(number % NEXT_CHARS.length()));
+
+			number /= NEXT_CHARS.length();
+		}
+
+		return builder.toString();
+	}
+
+	// region Scopes
+
+	private void visit(@NonNull List<LuaJSSyntaxParser.StatementContext> statements) {
+		for (LuaJSSyntaxParser.StatementContext statement : statements) {
+			visit(statement);
+		}
+	}
+
+	private void visit(@NonNull ParseTree tree) {
+		if (tree instanceof LuaJSSyntaxParser.StatementContext) {
+			this.positions.put((LuaJSSyntaxParser.StatementContext) tree, new Position(this.scope, this.scope.declarations.size()));
+		}
+
+		if (tree instanceof LuaJSSyntaxParser.LocalVariableDeclarationContext) {
+			LuaJSSyntaxParser.LocalVariableDeclarationContext ctx = (LuaJSSyntaxParser.LocalVariableDeclarationContext) tree;
+
+			// Values are evaluated before locals are declared
+			if (ctx.explist() != null) {
+				visit(ctx.explist());
+			}
+
+			declare(ctx.namelist());
+		} else if (tree instanceof LuaJSSyntaxParser.BlockStatementContext) {
+			enterScope((ParserRuleContext) tree);
+			visit(((LuaJSSyntaxParser.BlockStatementContext) tree).block().statement());
+			exitScope();
+		} else if (tree instanceof LuaJSSyntaxParser.IfContext) {
+			LuaJSSyntaxParser.IfContext ctx = (LuaJSSyntaxParser.IfContext) tree;
+
+			visit(ctx.exp());
+
+			for (LuaJSSyntaxParser.StatementContext branch : ctx.statement()) {
+				visitInScope(branch);
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.WhileContext) {
+			visit(((LuaJSSyntaxParser.WhileContext) tree).exp());
+			visitInScope(((LuaJSSyntaxParser.WhileContext) tree).statement());
+		} else if (tree instanceof LuaJSSyntaxParser.DoWhileContext) {
+			LuaJSSyntaxParser.DoWhileContext ctx = (LuaJSSyntaxParser.DoWhileContext) tree;
+
+			if (ctx.statement() instanceof LuaJSSyntaxParser.BlockStatementContext && !isWrapped(ctx.statement())) {
+				// The condition is converted to until of repeat, which sees locals of the body
+				enterScope(ctx);
+				visit(((LuaJSSyntaxParser.BlockStatementContext) ctx.statement()).block().statement());
+				visit(ctx.exp());
+				exitScope();
+			} else {
+				visitInScope(ctx.statement());
+				visit(ctx.exp());
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.ForContext) {
+			LuaJSSyntaxParser.ForContext ctx = (LuaJSSyntaxParser.ForContext) tree;
+
+			enterScope(ctx);
+
+			if (ctx.init != null) {
+				visit(ctx.init);
+			}
+
+			if (ctx.exp() != null) {
+				visit(ctx.exp());
+			}
+
+			visitInScope(ctx.body);
+
+			if (ctx.after != null) {
+				visit(ctx.after);
+			}
+
+			exitScope();
+		} else if (tree instanceof LuaJSSyntaxParser.ForInContext) {
+			LuaJSSyntaxParser.ForInContext ctx = (LuaJSSyntaxParser.ForInContext) tree;
+
+			visit(ctx.exp());
+			enterScope(ctx);
+			declare(ctx.namelist());
+			visitInScope(ctx.statement());
+			exitScope();
+		} else if (tree instanceof LuaJSSyntaxParser.ForOfContext) {
+			LuaJSSyntaxParser.ForOfContext ctx = (LuaJSSyntaxParser.ForOfContext) tree;
+
+			visit(ctx.exp());
+			enterScope(ctx);
+
+			if (ctx.NAME().size() > 1) {
+				declare(ctx.NAME(1));
+			}
+
+			declare(ctx.NAME(0));
+			visitInScope(ctx.statement());
+			exitScope();
+		} else if (tree instanceof LuaJSSyntaxParser.FunctionDeclarationContext) {
+			LuaJSSyntaxParser.FunctionDeclarationContext ctx = (LuaJSSyntaxParser.FunctionDeclarationContext) tree;
+
+			visit(ctx.funcname());
+			enterScope(ctx);
+
+			if (ctx.funcname().NAME().size() > 1) {
+				// Methods have the implicit parameter, which is never renamed
+				declare("self", -1, ctx.start.getLine());
+			}
+
+			if (ctx.namelist() != null) {
+				declare(ctx.namelist());
+			}
+
+			visit(ctx.block().statement());
+			exitScope();
+		} else if (tree instanceof LuaJSSyntaxParser.FunctionLiteralContext) {
+			LuaJSSyntaxParser.FunctionLiteralContext ctx = (LuaJSSyntaxParser.FunctionLiteralContext) tree;
+
+			enterScope(ctx);
+
+			if (ctx.namelist() != null) {
+				declare(ctx.namelist());
+			}
+
+			visit(ctx.block().statement());
+			exitScope();
+		} else if (tree instanceof LuaJSSyntaxParser.ArrowFunctionLiteralContext) {
+			LuaJSSyntaxParser.ArrowFunctionLiteralContext ctx = (LuaJSSyntaxParser.ArrowFunctionLiteralContext) tree;
+
+			enterScope(ctx);
+
+			if (ctx.namelist() != null) {
+				declare(ctx.namelist());
+			} else if (ctx.NAME() != null) {
+				declare(ctx.NAME());
+			}
+
+			if (ctx.exp() != null) {
+				visit(ctx.exp());
+			} else {
+				visit(ctx.block().statement());
+			}
+
+			exitScope();
+		} else if (tree instanceof LuaJSSyntaxParser.TryCatchContext) {
+			LuaJSSyntaxParser.TryCatchContext ctx = (LuaJSSyntaxParser.TryCatchContext) tree;
+
+			enterScope(ctx.block(0));
+			visit(ctx.block(0).statement());
+			exitScope();
+
+			enterScope(ctx.block(1));
+			declare(ctx.NAME());
+			visit(ctx.block(1).statement());
+			exitScope();
+		} else if (tree instanceof LuaJSSyntaxParser.GotoContext || tree instanceof LuaJSSyntaxParser.LabelDeclarationContext) {
+			// Labels are not variables
+		} else if (StringBufferAnalyzer.isVariableName(tree)) {
+			resolve((TerminalNode) tree);
+		} else {
+			for (int i = 0; i < tree.getChildCount(); i++) {
+				visit(tree.getChild(i));
+			}
+		}
+	}
+
+	/**
+	 * Visits the body of a statement, which is converted to a separate Lua block.
+	 */
+	private void visitInScope(@NonNull LuaJSSyntaxParser.StatementContext statement) {
+		if (statement instanceof LuaJSSyntaxParser.BlockStatementContext) {
+			visit(statement);
+			return;
+		}
+
+		enterScope(statement);
+		visit(statement);
+		exitScope();
+	}
+
+	/**
+	 * Returns whether the loop body is wrapped into another block by the converter, see {@link LuaJSToLuaConverter#containsJump(ParseTree, Class)}.
+	 */
+	private boolean isWrapped(@NonNull LuaJSSyntaxParser.StatementContext body) {
+		return this.target == ConversionOptions.Target.LUA_51 && LuaJSToLuaConverter.containsJump(body, LuaJSSyntaxParser.ContinueContext.class);
+	}
+
+	private void enterScope(@NonNull ParserRuleContext ctx) {
+		this.scope = new Scope(this.scope, ctx);
+	}
+
+	private void exitScope() {
+		this.scope = this.scope.parent;
+	}
+
+	private void declare(@NonNull LuaJSSyntaxParser.NamelistContext namelist) {
+		for (TerminalNode name : namelist.NAME()) {
+			declare(name);
+		}
+	}
+
+	private void declare(@NonNull TerminalNode name) {
+		this.resolved.put(name, declare(name.getText(), this.scope.nextIndex++, name.getSymbol().getLine()));
+	}
+
+	private Declaration declare(@NonNull String name, int index, int line) {
+		Declaration declaration = new Declaration(name, index, line, this.scope);
+
+		this.scope.declarations.add(declaration);
+		this.scope.visible.put(name, declaration);
+		this.declarations.add(declaration);
+
+		return declaration;
+	}
+
+	private void resolve(@NonNull TerminalNode name) {
+		String text = name.getText();
+
+		for (Scope scope = this.scope; scope != null; scope = scope.parent) {
+			Declaration declaration = scope.visible.get(text);
+
+			if (declaration != null) {
+				this.resolved.put(name, declaration);
+				return;
+			}
+		}
+
+		this.globals.add(text);
+	}
+
+	// endregion
+
+	private static final class Scope {
+
+		private final Scope parent;
+		/**
+		 * Count of declarations of the parent visible in this scope.
+		 */
+		private final int parentCount;
+		private final int lastLine;
+		private final List<Declaration> declarations = new ArrayList<>();
+		/**
+		 * Last declarations of each name.
+		 */
+		private final Map<String, Declaration> visible = new HashMap<>();
+		/**
+		 * Index of the name of the next declaration.
+		 */
+		private int nextIndex;
+
+		private Scope(Scope parent, @NonNull ParserRuleContext ctx) {
+			this.parent = parent;
+			this.parentCount = parent != null ? parent.declarations.size() : 0;
+			this.lastLine = ctx.stop != null ? ctx.stop.getLine() : ctx.start.getLine();
+			this.nextIndex = parent != null ? parent.nextIndex : 0;
+		}
+
+	}
+
+	private static final class Declaration {
+
+		private final String sourceName;
+		/**
+		 * Index of the assigned name, -1 if the declaration is not renamed.
+		 */
+		private final int index;
+		private final int line;
+		private final Scope scope;
+
+		private Declaration(@NonNull String sourceName, int index, int line, @NonNull Scope scope) {
+			this.sourceName = sourceName;
+			this.index = index;
+			this.line = line;
+			this.scope = scope;
+		}
+
+	}
+
+	private static final class Position {
+
+		private final Scope scope;
+		private final int count;
+
+		private Position(@NonNull Scope scope, int count) {
+			this.scope = scope;
+			this.count = count;
+		}
+
+	}
+
+}
@@ -0,0 +1,693 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.*;
+
+/**
+ * Recognizes for statements that can be converted to Lua numeric for:
+ * {@code for (let i = start; i (<|<=|>|>=) limit; i++|i--|i += step|i -= step) body}, where step is a number literal.
+ * <p>
+ * Lua evaluates the limit once, and the body can not change the loop variable, so the body must not assign the loop variable,
+ * and the limit must be proven to not change during the loop. Lua also converts strings to numbers in the limit and the start,
+ * while comparisons raise an error for them, so both must be known to be numbers.
+ * <p>
+ * The limit may be a number, a length of a variable or its field, a local, or arithmetic of these. The start may also be any such expression.
+ * Used locals must be declared inside the same top-level statement and function as the loop, so each top-level statement
+ * is converted independently of others, as {@link IncrementalConversion} requires. Their values must be numbers,
+ * they must be assigned only numbers, and no function may use them, so no call in the body can change them.
+ * Since a called function may change any table, the body of a loop with a length in the limit must have no calls.
+ * Since another variable may refer to the same table, the body must not assign fields of any variable,
+ * and must not use the variable in any other way than taking its length.
+ * Metamethods are assumed to not change the limit.
+ * <p>
+ * Lua numeric for includes the limit, so strict comparisons are converted only when start and step are integers:
+ * {@code i < n} becomes {@code n - 1} if {@code n} is known to be an integer, like a length, and {@code math.ceil(n) - 1} otherwise.
+ * @author saharNooby
+ * @since 02:10 19.10.2026
+ */
+final class NumericForLoop {
+
+	/**
+	 * Max absolute value of a limit computed during conversion.
+	 */
+	private static final double MAX_COMPUTED_LIMIT = 1L << 53;
+	/**
+	 * Assignment operators which result is a number when both operands are numbers.
+	 */
+	private static final Set<String> ARITHMETIC_ASSIGNMENTS = new HashSet<>(Arrays.asList("+=", "-=", "*=", "/=", "%="));
+
+	final String name;
+	final LuaJSSyntaxParser.ExpContext start;
+	final LuaJSSyntaxParser.ExpContext limit;
+	/**
+	 * Value of the limit computed during conversion, or null if the limit is printed as is.
+	 */
+	final String limitValue;
+	/**
+	 * Function applied to the limit before adding the offset, or null.
+	 */
+	final String limitRounding;
+	/**
+	 * Value added to the limit, -1, 0 or 1.
+	 */
+	final int limitOffset;
+	final String step;
+
+	private NumericForLoop(String name, LuaJSSyntaxParser.ExpContext start, LuaJSSyntaxParser.ExpContext limit,
+						   String limitValue, String limitRounding, int limitOffset, String step) {
+		this.name = name;
+		this.start = start;
+		this.limit = limit;
+		this.limitValue = limitValue;
+		this.limitRounding = limitRounding;
+		this.limitOffset = limitOffset;
+		this.step = step;
+	}
+
+	/**
+	 * Returns the numeric loop equivalent to the for statement, or null if there is no such loop.
+	 */
+	static NumericForLoop of(@NonNull LuaJSSyntaxParser.ForContext ctx, @NonNull ConstantFolder folder) {
+		if (!(ctx.init instanceof LuaJSSyntaxParser.LocalVariableDeclarationContext)) {
+			return null;
+		}
+
+		LuaJSSyntaxParser.LocalVariableDeclarationContext var = (LuaJSSyntaxParser.LocalVariableDeclarationContext) ctx.init;
+
+		if (var.namelist().NAME().size() != 1) {
+			return null;
+		}
+
+		if (var.explist() == null || var.explist().exp().size() != 1) {
+			return null;
+		}
+
+		String name = var.namelist().NAME(0).getText();
+		LuaJSSyntaxParser.ExpContext start = var.explist().exp(0);
+
+		if (!(ctx.exp() instanceof LuaJSSyntaxParser.ComparisonOperatorContext)) {
+			return null;
+		}
+
+		LuaJSSyntaxParser.ComparisonOperatorContext comp = (LuaJSSyntaxParser.ComparisonOperatorContext) ctx.exp();
+
+		if (!isName(comp.exp(0), name)) {
+			return null;
+		}
+
+		String op = comp.op.getText();
+
+		if (!op.contains(">") && !op.contains("<")) {
+			return null;
+		}
+
+		String step = getStep(ctx.after, name);
+
+		if (step == null) {
+			return null;
+		}
+
+		double stepValue = step.startsWith("-") ? -1 : 1;
+
+		if (ctx.after instanceof LuaJSSyntaxParser.AssginmentOperatorContext) {
+			ConstantFolder.Constant number = folder.evaluate(((LuaJSSyntaxParser.AssginmentOperatorContext) ctx.after).exp());
+
+			if (number == null) {
+				return null;
+			}
+
+			stepValue *= number.number;
+		}
+
+		// A loop with the step going away from the limit is either infinite or is not executed at all
+		if (op.contains("<") ? stepValue <= 0 : stepValue >= 0) {
+			return null;
+		}
+
+		LuaJSSyntaxParser.ExpContext limit = comp.exp(1);
+		ConstantFolder.Constant limitConstant = folder.evaluate(limit);
+
+		if (limitConstant != null && limitConstant.type != ConstantFolder.Constant.Type.NUMBER) {
+			return null;
+		}
+
+		if (!isNumber(start, ctx, folder)) {
+			return null;
+		}
+
+		if (limitConstant == null) {
+			Set<String> values = new HashSet<>();
+			Set<String> tables = new HashSet<>();
+
+			if (!isStable(limit, folder, values, tables) || values.contains(name) || tables.contains(name)) {
+				return null;
+			}
+
+			for (String value : values) {
+				if (!isNumericLocal(ctx, value, folder) || isChanged(ctx.body, value, false)) {
+					return null;
+				}
+			}
+
+			// A called function may change any table, and an assigned field may belong to the same table through another variable
+			if (!tables.isEmpty() && (hasCalls(ctx.body) || hasFieldAssignments(ctx.body))) {
+				return null;
+			}
+
+			for (String table : tables) {
+				if (isChanged(ctx.body, table, true)) {
+					return null;
+				}
+			}
+		}
+
+		if (isChanged(ctx.body, name, false)) {
+			return null;
+		}
+
+		if (op.contains("=")) {
+			return new NumericForLoop(name, start, limit, null, null, 0, step);
+		}
+
+		// Loop variable takes only integer values, so it is less than the limit when it is not greater than the previous integer
+		if (!isInteger(stepValue) || !isInteger(start, folder)) {
+			return null;
+		}
+
+		int offset = op.equals("<") ? -1 : 1;
+
+		if (limitConstant != null) {
+			double value = (op.equals("<") ? Math.ceil(limitConstant.number) : Math.floor(limitConstant.number)) + offset;
+
+			if (Double.isNaN(value) || Math.abs(value) > MAX_COMPUTED_LIMIT) {
+				return null;
+			}
+
+			return new NumericForLoop(name, start, limit, Long.toString((long) value), null, 0, step);
+		}
+
+		if (isInteger(limit, folder)) {
+			return new NumericForLoop(name, start, limit, null, null, offset, step);
+		}
+
+		return new NumericForLoop(name, start, limit, null, op.equals("<") ? "math.ceil" : "math.floor", offset, step);
+	}
+
+	/**
+	 * Returns the step of the loop as a Lua number, or null if the statement does not change the loop variable by a number literal.
+	 */
+	private static String getStep(LuaJSSyntaxParser.StatementContext after, @NonNull String name) {
+		if (after instanceof LuaJSSyntaxParser.IncrementContext) {
+			return isName(((LuaJSSyntaxParser.IncrementContext) after).var(), name) ? "1" : null;
+		}
+
+		if (after instanceof LuaJSSyntaxParser.DecrementContext) {
+			return isName(((LuaJSSyntaxParser.DecrementContext) after).var(), name) ? "-1" : null;
+		}
+
+		if (!(after instanceof LuaJSSyntaxParser.AssginmentOperatorContext)) {
+			return null;
+		}
+
+		LuaJSSyntaxParser.AssginmentOperatorContext ctx = (LuaJSSyntaxParser.AssginmentOperatorContext) after;
+
+		String assignOp = ctx.assignmentOperator().getText();
+
+		if (!assignOp.equals("+=") && !assignOp.equals("-=")) {
+			return null;
+		}
+
+		if (!isName(ctx.var(), name) || !(ctx.exp() instanceof LuaJSSyntaxParser.NumberLiteralContext)) {
+			return null;
+		}
+
+		String number = ctx.exp().getText();
+
+		return assignOp.equals("-=") ? "-" + number : number;
+	}
+
+	/**
+	 * Returns whether the expression is a number that can be evaluated once before the loop, if the variables it uses are not changed
+	 * and variables used as values are numbers. Names of variables used as values are added to the first set,
+	 * names of variables which length or length of a field is used to the second.
+	 */
+	private static boolean isStable(@NonNull LuaJSSyntaxParser.ExpContext exp, @NonNull ConstantFolder folder, @NonNull Set<String> values, @NonNull Set<String> tables) {
+		ConstantFolder.Constant constant = folder.evaluate(exp);
+
+		if (constant != null) {
+			return constant.type == ConstantFolder.Constant.Type.NUMBER;
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.ParenthesisExpressionContext) {
+			return isStable(((LuaJSSyntaxParser.ParenthesisExpressionContext) exp).exp(), folder, values, tables);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.VarExpressionContext) {
+			LuaJSSyntaxParser.VarContext var = ((LuaJSSyntaxParser.VarExpressionContext) exp).var();
+
+			// Fields may have any value
+			return var.varSuffix().isEmpty() && isStable(var, false, folder, values, tables);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.UnaryOperatorContext) {
+			LuaJSSyntaxParser.UnaryOperatorContext ctx = (LuaJSSyntaxParser.UnaryOperatorContext) exp;
+
+			switch (ctx.op.getText()) {
+				case "-":
+					return isStable(ctx.exp(), folder, values, tables);
+				case "#":
+					return ctx.exp() instanceof LuaJSSyntaxParser.VarExpressionContext
+							&& isStable(((LuaJSSyntaxParser.VarExpressionContext) ctx.exp()).var(), true, folder, values, tables);
+				default:
+					return false;
+			}
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.AddSubOperatorContext) {
+			LuaJSSyntaxParser.AddSubOperatorContext ctx = (LuaJSSyntaxParser.AddSubOperatorContext) exp;
+
+			return isStable(ctx.exp(0), folder, values, tables) && isStable(ctx.exp(1), folder, values, tables);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.MulDivModOperatorContext) {
+			LuaJSSyntaxParser.MulDivModOperatorContext ctx = (LuaJSSyntaxParser.MulDivModOperatorContext) exp;
+
+			return isStable(ctx.exp(0), folder, values, tables) && isStable(ctx.exp(1), folder, values, tables);
+		}
+
+		return false;
+	}
+
+	private static boolean isStable(@NonNull LuaJSSyntaxParser.VarContext var, boolean length, @NonNull ConstantFolder folder, @NonNull Set<String> values, @NonNull Set<String> tables) {
+		if (var.NAME() == null) {
+			return false;
+		}
+
+		for (LuaJSSyntaxParser.VarSuffixContext suffix : var.varSuffix()) {
+			if (!suffix.nameAndArgs().isEmpty()) {
+				return false;
+			}
+
+			if (suffix.exp() != null && !isStable(suffix.exp(), folder, values, tables)) {
+				return false;
+			}
+		}
+
+		if (length || !var.varSuffix().isEmpty()) {
+			tables.add(var.NAME().getText());
+		} else {
+			values.add(var.NAME().getText());
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns whether the value of the expression evaluated before the loop is known to be a number.
+	 */
+	private static boolean isNumber(@NonNull LuaJSSyntaxParser.ExpContext exp, @NonNull LuaJSSyntaxParser.ForContext loop, @NonNull ConstantFolder folder) {
+		Set<String> values = new HashSet<>();
+
+		if (!isStable(exp, folder, values, new HashSet<>())) {
+			return false;
+		}
+
+		for (String value : values) {
+			if (!isNumericLocal(loop, value, folder)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns whether the name used by the loop is a local that is declared with a number, is assigned only numbers
+	 * and is not used by any function, so it can be changed only by assignments in its own function.
+	 */
+	private static boolean isNumericLocal(@NonNull LuaJSSyntaxParser.ForContext loop, @NonNull String name, @NonNull ConstantFolder folder) {
+		ParseTree child = loop;
+		ParseTree parent = loop.getParent();
+
+		// Locals of other top-level statements and functions are not analyzed
+		while (parent != null && !(parent instanceof LuaJSSyntaxParser.ProgramContext) && !isFunction(parent)) {
+			if (parent instanceof LuaJSSyntaxParser.BlockContext) {
+				List<LuaJSSyntaxParser.StatementContext> statements = ((LuaJSSyntaxParser.BlockContext) parent).statement();
+
+				for (int i = statements.indexOf(child) - 1; i >= 0; i--) {
+					LuaJSSyntaxParser.StatementContext statement = statements.get(i);
+
+					if (declares(statement, name)) {
+						return isNumericDeclaration(statement, name, folder) && isAssignedNumbers(statements.subList(i + 1, statements.size()), name, folder);
+					}
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.ForContext) {
+				LuaJSSyntaxParser.ForContext ctx = (LuaJSSyntaxParser.ForContext) parent;
+
+				if (ctx.init != null && ctx.init != child && declares(ctx.init, name)) {
+					List<ParseTree> scope = new ArrayList<>();
+
+					for (int i = 0; i < ctx.getChildCount(); i++) {
+						if (ctx.getChild(i) != ctx.init) {
+							scope.add(ctx.getChild(i));
+						}
+					}
+
+					return isNumericDeclaration(ctx.init, name, folder) && isAssignedNumbers(scope, name, folder);
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.ForInContext) {
+				if (isDeclared(((LuaJSSyntaxParser.ForInContext) parent).namelist().NAME(), name)) {
+					return false;
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.ForOfContext) {
+				if (isDeclared(((LuaJSSyntaxParser.ForOfContext) parent).NAME(), name)) {
+					return false;
+				}
+			} else if (parent instanceof LuaJSSyntaxParser.TryCatchContext) {
+				LuaJSSyntaxParser.TryCatchContext ctx = (LuaJSSyntaxParser.TryCatchContext) parent;
+
+				if (child == ctx.block(1) && ctx.NAME().getText().equals(name)) {
+					return false;
+				}
+			}
+
+			child = parent;
+			parent = parent.getParent();
+		}
+
+		return false;
+	}
+
+	private static boolean isFunction(@NonNull ParseTree tree) {
+		return tree instanceof LuaJSSyntaxParser.FunctionDeclarationContext
+				|| tree instanceof LuaJSSyntaxParser.FunctionLiteralContext
+				|| tree instanceof LuaJSSyntaxParser.ArrowFunctionLiteralContext;
+	}
+
+	private static boolean declares(@NonNull LuaJSSyntaxParser.StatementContext statement, @NonNull String name) {
+		if (statement instanceof LuaJSSyntaxParser.LocalVariableDeclarationContext) {
+			return isDeclared(((LuaJSSyntaxParser.LocalVariableDeclarationContext) statement).namelist().NAME(), name);
+		}
+
+		if (statement instanceof LuaJSSyntaxParser.FunctionDeclarationContext) {
+			List<TerminalNode> names = ((LuaJSSyntaxParser.FunctionDeclarationContext) statement).funcname().NAME();
+
+			return names.size() == 1 && names.get(0).getText().equals(name);
+		}
+
+		return false;
+	}
+
+	private static boolean isDeclared(@NonNull List<TerminalNode> names, @NonNull String name) {
+		for (TerminalNode node : names) {
+			if (node.getText().equals(name)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether the statement is a declaration of locals that assigns a number to the local.
+	 */
+	private static boolean isNumericDeclaration(@NonNull LuaJSSyntaxParser.StatementContext statement, @NonNull String name, @NonNull ConstantFolder folder) {
+		if (!(statement instanceof LuaJSSyntaxParser.LocalVariableDeclarationContext)) {
+			return false;
+		}
+
+		LuaJSSyntaxParser.LocalVariableDeclarationContext ctx = (LuaJSSyntaxParser.LocalVariableDeclarationContext) statement;
+
+		List<TerminalNode> names = ctx.namelist().NAME();
+
+		// The last of repeated names is visible after the declaration
+		int index = names.size() - 1;
+
+		while (!names.get(index).getText().equals(name)) {
+			index--;
+		}
+
+		return ctx.explist() != null && index < ctx.explist().exp().size() && isNumericValue(ctx.explist().exp(index), null, folder);
+	}
+
+	/**
+	 * Returns whether the trees assign only numbers to the local and have no functions that use it.
+	 * Assignments to locals with the same name declared in the trees are also checked.
+	 */
+	private static boolean isAssignedNumbers(@NonNull List<? extends ParseTree> trees, @NonNull String name, @NonNull ConstantFolder folder) {
+		for (ParseTree tree : trees) {
+			if (!isAssignedNumbers(tree, name, folder)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isAssignedNumbers(@NonNull ParseTree tree, @NonNull String name, @NonNull ConstantFolder folder) {
+		if (isFunction(tree)) {
+			// A function using the local may change it when called
+			return !isUsed(tree, name);
+		}
+
+		if (tree instanceof LuaJSSyntaxParser.GlobalVariableDeclarationContext) {
+			LuaJSSyntaxParser.GlobalVariableDeclarationContext ctx = (LuaJSSyntaxParser.GlobalVariableDeclarationContext) tree;
+
+			List<LuaJSSyntaxParser.VarContext> vars = ctx.varlist().var();
+			List<LuaJSSyntaxParser.ExpContext> exps = ctx.explist().exp();
+
+			for (int i = 0; i < vars.size(); i++) {
+				if (isName(vars.get(i), name) && (i >= exps.size() || !isNumericValue(exps.get(i), name, folder))) {
+					return false;
+				}
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.AssginmentOperatorContext) {
+			LuaJSSyntaxParser.AssginmentOperatorContext ctx = (LuaJSSyntaxParser.AssginmentOperatorContext) tree;
+
+			if (isName(ctx.var(), name) && (!ARITHMETIC_ASSIGNMENTS.contains(ctx.assignmentOperator().getText()) || !isNumericValue(ctx.exp(), name, folder))) {
+				return false;
+			}
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			if (!isAssignedNumbers(tree.getChild(i), name, folder)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns whether the value of the expression is known to be a number.
+	 * @param self Name of the local which value is known to be a number, or null.
+	 */
+	private static boolean isNumericValue(@NonNull LuaJSSyntaxParser.ExpContext exp, String self, @NonNull ConstantFolder folder) {
+		ConstantFolder.Constant constant = folder.evaluate(exp);
+
+		if (constant != null) {
+			return constant.type == ConstantFolder.Constant.Type.NUMBER;
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.ParenthesisExpressionContext) {
+			return isNumericValue(((LuaJSSyntaxParser.ParenthesisExpressionContext) exp).exp(), self, folder);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.VarExpressionContext) {
+			return self != null && isName(((LuaJSSyntaxParser.VarExpressionContext) exp).var(), self);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.UnaryOperatorContext) {
+			LuaJSSyntaxParser.UnaryOperatorContext ctx = (LuaJSSyntaxParser.UnaryOperatorContext) exp;
+
+			return ctx.op.getText().equals("#") || ctx.op.getText().equals("-") && isNumericValue(ctx.exp(), self, folder);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.AddSubOperatorContext) {
+			LuaJSSyntaxParser.AddSubOperatorContext ctx = (LuaJSSyntaxParser.AddSubOperatorContext) exp;
+
+			return isNumericValue(ctx.exp(0), self, folder) && isNumericValue(ctx.exp(1), self, folder);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.MulDivModOperatorContext) {
+			LuaJSSyntaxParser.MulDivModOperatorContext ctx = (LuaJSSyntaxParser.MulDivModOperatorContext) exp;
+
+			return isNumericValue(ctx.exp(0), self, folder) && isNumericValue(ctx.exp(1), self, folder);
+		}
+
+		return false;
+	}
+
+	private static boolean isUsed(@NonNull ParseTree tree, @NonNull String name) {
+		if (tree instanceof TerminalNode) {
+			return ((TerminalNode) tree).getSymbol().getType() == LuaJSSyntaxParser.NAME && tree.getText().equals(name);
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			if (isUsed(tree.getChild(i), name)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether the tree may call a function: has calls, method calls or iterates with for-in.
+	 */
+	private static boolean hasCalls(@NonNull ParseTree tree) {
+		if (tree instanceof LuaJSSyntaxParser.NameAndArgsContext || tree instanceof LuaJSSyntaxParser.ForInContext) {
+			return true;
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			if (hasCalls(tree.getChild(i))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether the tree assigns a field of any variable.
+	 */
+	private static boolean hasFieldAssignments(@NonNull ParseTree tree) {
+		if (tree instanceof LuaJSSyntaxParser.GlobalVariableDeclarationContext) {
+			for (LuaJSSyntaxParser.VarContext var : ((LuaJSSyntaxParser.GlobalVariableDeclarationContext) tree).varlist().var()) {
+				if (!var.varSuffix().isEmpty()) {
+					return true;
+				}
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.AssginmentOperatorContext) {
+			if (!((LuaJSSyntaxParser.AssginmentOperatorContext) tree).var().varSuffix().isEmpty()) {
+				return true;
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.IncrementContext) {
+			if (!((LuaJSSyntaxParser.IncrementContext) tree).var().varSuffix().isEmpty()) {
+				return true;
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.DecrementContext) {
+			if (!((LuaJSSyntaxParser.DecrementContext) tree).var().varSuffix().isEmpty()) {
+				return true;
+			}
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			if (hasFieldAssignments(tree.getChild(i))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether the value of the expression is known to be an integer.
+	 */
+	private static boolean isInteger(@NonNull LuaJSSyntaxParser.ExpContext exp, @NonNull ConstantFolder folder) {
+		ConstantFolder.Constant constant = folder.evaluate(exp);
+
+		if (constant != null) {
+			return constant.type == ConstantFolder.Constant.Type.NUMBER && isInteger(constant.number);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.ParenthesisExpressionContext) {
+			return isInteger(((LuaJSSyntaxParser.ParenthesisExpressionContext) exp).exp(), folder);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.UnaryOperatorContext) {
+			LuaJSSyntaxParser.UnaryOperatorContext ctx = (LuaJSSyntaxParser.UnaryOperatorContext) exp;
+
+			return ctx.op.getText().equals("#") || ctx.op.getText().equals("-") && isInteger(ctx.exp(), folder);
+		}
+
+		if (exp instanceof LuaJSSyntaxParser.AddSubOperatorContext) {
+			LuaJSSyntaxParser.AddSubOperatorContext ctx = (LuaJSSyntaxParser.AddSubOperatorContext) exp;
+
+			return isInteger(ctx.exp(0), folder) && isInteger(ctx.exp(1), folder);
+		}
+
+		return false;
+	}
+
+	private static boolean isInteger(double value) {
+		return !Double.isInfinite(value) && value == Math.rint(value);
+	}
+
+	/**
+	 * Returns whether the tree may change the variable: assigns it, or, if its fields are used, assigns its fields,
+	 * calls its methods or uses it as a value in any other way than taking its length.
+	 */
+	private static boolean isChanged(@NonNull ParseTree tree, @NonNull String name, boolean table) {
+		if (tree instanceof LuaJSSyntaxParser.GlobalVariableDeclarationContext) {
+			for (LuaJSSyntaxParser.VarContext var : ((LuaJSSyntaxParser.GlobalVariableDeclarationContext) tree).varlist().var()) {
+				if (isBase(var, name)) {
+					return true;
+				}
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.AssginmentOperatorContext) {
+			if (isBase(((LuaJSSyntaxParser.AssginmentOperatorContext) tree).var(), name)) {
+				return true;
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.IncrementContext) {
+			if (isBase(((LuaJSSyntaxParser.IncrementContext) tree).var(), name)) {
+				return true;
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.DecrementContext) {
+			if (isBase(((LuaJSSyntaxParser.DecrementContext) tree).var(), name)) {
+				return true;
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.FunctionDeclarationContext) {
+			if (((LuaJSSyntaxParser.FunctionDeclarationContext) tree).funcname().NAME(0).getText().equals(name)) {
+				return true;
+			}
+		} else if (table && tree instanceof LuaJSSyntaxParser.VarContext && isBase((LuaJSSyntaxParser.VarContext) tree, name)) {
+			LuaJSSyntaxParser.VarContext var = (LuaJSSyntaxParser.VarContext) tree;
+
+			if (var.parent instanceof LuaJSSyntaxParser.FunctionCallContext || var.parent instanceof LuaJSSyntaxParser.FunctionCallExpressionContext) {
+				return true;
+			}
+
+			for (LuaJSSyntaxParser.VarSuffixContext suffix : var.varSuffix()) {
+				if (!suffix.nameAndArgs().isEmpty()) {
+					return true;
+				}
+			}
+
+			if (var.varSuffix().isEmpty() && !isLengthOperand(var.parent)) {
+				return true;
+			}
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			if (isChanged(tree.getChild(i), name, table)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isLengthOperand(ParseTree exp) {
+		return exp instanceof LuaJSSyntaxParser.VarExpressionContext
+				&& exp.getParent() instanceof LuaJSSyntaxParser.UnaryOperatorContext
+				&& ((LuaJSSyntaxParser.UnaryOperatorContext) exp.getParent()).op.getText().equals("#");
+	}
+
+	private static boolean isBase(@NonNull LuaJSSyntaxParser.VarContext var, @NonNull String name) {
+		return var.NAME() != null && var.NAME().getText().equals(name);
+	}
+
+	private static boolean isName(@NonNull LuaJSSyntaxParser.ExpContext exp, @NonNull String name) {
+		return exp instanceof LuaJSSyntaxParser.VarExpressionContext && isName(((LuaJSSyntaxParser.VarExpressionContext) exp).var(), name);
+	}
+
+	private static boolean isName(@NonNull LuaJSSyntaxParser.VarContext var, @NonNull String name) {
+		return isBase(var, name) && var.varSuffix().isEmpty();
+	}
+
+}
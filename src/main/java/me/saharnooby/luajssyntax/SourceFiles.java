@@ -0,0 +1,185 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Expands file, directory and glob arguments of the console app into a map of source files to destination files.
+ * @author saharNooby
+ * @since 15:10 18.10.2026
+ */
+final class SourceFiles {
+
+	/**
+	 * Extension of files that are collected from directories.
+	 */
+	static final String SOURCE_EXTENSION = ".ljs";
+
+	private static final String DESTINATION_EXTENSION = ".lua";
+
+	/**
+	 * Collects source files and maps them to destination files under the output root.
+	 * A file is mapped directly into the output root; files found in a directory or by a glob keep their path
+	 * relative to the directory or to the non-pattern part of the glob.
+	 * Different source files must not be mapped to the same destination file, like files with the same name from different directories.
+	 * @param inputs Files, directories (all files with {@link #SOURCE_EXTENSION} are collected recursively) or glob patterns.
+	 * @param outputRoot Directory to put the results into.
+	 * @return Map of source files to destination files.
+	 * @throws IOException When a directory can not be walked, or an input does not exist.
+	 * @throws IllegalArgumentException When different source files are mapped to the same destination file.
+	 */
+	static Map<Path, Path> collect(@NonNull List<String> inputs, @NonNull Path outputRoot) throws IOException {
+		Map<Path, Path> files = new LinkedHashMap<>();
+
+		for (String input : inputs) {
+			if (isGlob(input)) {
+				collectGlob(input, outputRoot, files);
+				continue;
+			}
+
+			Path path = Paths.get(input);
+
+			if (Files.isDirectory(path)) {
+				PathMatcher matcher = p -> p.getFileName().toString().endsWith(SOURCE_EXTENSION);
+
+				collect(path, matcher, outputRoot, files);
+			} else if (Files.isRegularFile(path)) {
+				files.put(path, outputRoot.resolve(toDestinationName(path.getFileName().toString())));
+			} else {
+				throw new NoSuchFileException(input);
+			}
+		}
+
+		checkDestinations(files);
+
+		return files;
+	}
+
+	/**
+	 * Replaces the extension of the file name with the Lua one.
+	 */
+	static String toDestinationName(@NonNull String fileName) {
+		int dot = fileName.lastIndexOf('.');
+
+		return (dot > 0 ? fileName.substring(0, dot) : fileName) + DESTINATION_EXTENSION;
+	}
+
+	/**
+	 * Returns directories that contain files matched by inputs: directories themselves, bases of globs and parents of files.
+	 * @param inputs Files, directories or glob patterns.
+	 * @return Map of directories to flags indicating whether their subdirectories may contain matched files too.
+	 */
+	static Map<Path, Boolean> roots(@NonNull List<String> inputs) {
+		Map<Path, Boolean> roots = new LinkedHashMap<>();
+
+		for (String input : inputs) {
+			Path root;
+			boolean recursive;
+
+			if (isGlob(input)) {
+				root = globBase(input);
+				recursive = true;
+			} else if (Files.isDirectory(Paths.get(input))) {
+				root = Paths.get(input);
+				recursive = true;
+			} else {
+				Path parent = Paths.get(input).toAbsolutePath().getParent();
+				root = parent != null ? parent : Paths.get(input).toAbsolutePath();
+				recursive = false;
+			}
+
+			roots.merge(root.toAbsolutePath().normalize(), recursive, Boolean::logicalOr);
+		}
+
+		return roots;
+	}
+
+	private static void collectGlob(@NonNull String glob, @NonNull Path outputRoot, @NonNull Map<Path, Path> files) throws IOException {
+		String normalized = glob.replace('\\', '/');
+
+		Path base = globBase(glob);
+
+		PathMatcher globMatcher = base.getFileSystem().getPathMatcher("glob:" + normalized.substring(globBaseEnd(normalized)));
+
+		collect(base, p -> globMatcher.matches(base.relativize(p)), outputRoot, files);
+	}
+
+	/**
+	 * Returns the longest prefix of path elements of the glob without glob characters.
+	 */
+	private static Path globBase(@NonNull String glob) {
+		String normalized = glob.replace('\\', '/');
+
+		int baseEnd = globBaseEnd(normalized);
+
+		return Paths.get(baseEnd == 0 ? "." : normalized.substring(0, baseEnd));
+	}
+
+	private static int globBaseEnd(@NonNull String normalizedGlob) {
+		int baseEnd = 0;
+
+		for (int i = 0; i < normalizedGlob.length(); i++) {
+			char c = normalizedGlob.charAt(i);
+
+			if (isGlobChar(c)) {
+				break;
+			}
+
+			if (c == '/') {
+				baseEnd = i + 1;
+			}
+		}
+
+		return baseEnd;
+	}
+
+	private static void collect(@NonNull Path base, @NonNull PathMatcher matcher, @NonNull Path outputRoot, @NonNull Map<Path, Path> files) throws IOException {
+		try (Stream<Path> stream = Files.walk(base)) {
+			stream.filter(Files::isRegularFile).filter(matcher::matches).sorted().forEach(path -> {
+				Path relative = base.relativize(path);
+				Path parent = relative.getParent();
+				String name = toDestinationName(relative.getFileName().toString());
+
+				files.put(path, parent != null ? outputRoot.resolve(parent.toString()).resolve(name) : outputRoot.resolve(name));
+			});
+		}
+	}
+
+	/**
+	 * Throws if different source files are mapped to the same destination file, since one of the results would be silently overwritten.
+	 */
+	private static void checkDestinations(@NonNull Map<Path, Path> files) {
+		Map<Path, Path> sources = new HashMap<>();
+
+		for (Map.Entry<Path, Path> entry : files.entrySet()) {
+			Path source = entry.getKey().toAbsolutePath().normalize();
+			Path previous = sources.putIfAbsent(entry.getValue().toAbsolutePath().normalize(), source);
+
+			if (previous != null && !previous.equals(source)) {
+				throw new IllegalArgumentException("Source files " + previous + " and " + source + " are both converted to " + entry.getValue());
+			}
+		}
+	}
+
+	private static boolean isGlob(@NonNull String input) {
+		for (int i = 0; i < input.length(); i++) {
+			if (isGlobChar(input.charAt(i))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isGlobChar(char c) {
+		return c == '*' || c == '?' || c == '[' || c == '{';
+	}
+
+}
@@ -0,0 +1,222 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.Getter;
+import lombok.NonNull;
+import me.saharnooby.luajssyntax.util.Printer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps positions in converted code to positions in the LuaJS source, so tools like profilers can point at source expressions
+ * inside long converted lines. See {@link LuaJSToLua#convertWithSourceMap(org.antlr.v4.runtime.CharStream, Appendable, ConversionOptions)}.
+ * <p>
+ * Each mapping starts at a token of converted code and covers code up to the next mapping. Code that has a matching source token,
+ * like a name, a literal, a keyword or an operator, is mapped to the position of that token. Code that is added by the conversion,
+ * like the {@code pcall} wrapper of a try-catch, is marked as synthesized and mapped to the position of the nearest related source token.
+ * Lines start from 1, columns start from 0 and count chars.
+ * <p>
+ * The map is written as text, one mapping per line, in order of converted positions:
+ * <pre>
+ * original &lt;line&gt; &lt;column&gt; &lt;source line&gt; &lt;source column&gt;
+ * synthetic &lt;line&gt; &lt;column&gt; &lt;source line&gt; &lt;source column&gt;
+ * </pre>
+ * @author saharNooby
+ * @since 05:30 19.10.2026
+ */
+public final class SourceMap {
+
+	private static final int SIZE = Printer.MAPPING_SIZE;
+
+	/**
+	 * Mappings in the format of {@link Printer#getMappings()}.
+	 */
+	private final int[] mappings;
+
+	SourceMap(@NonNull int[] mappings) {
+		this.mappings = mappings;
+	}
+
+	/**
+	 * Reads a map written by {@link #write(Appendable)}. The reader is read until the end, but not closed.
+	 * @throws IllegalArgumentException When the map is invalid.
+	 */
+	public static SourceMap read(@NonNull Reader in) throws IOException {
+		BufferedReader reader = new BufferedReader(in);
+
+		int[] mappings = new int[SIZE * 64];
+		int length = 0;
+
+		String line;
+
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
+			}
+
+			String[] parts = line.split(" ");
+
+			if (parts.length != 5 || !parts[0].equals("original") && !parts[0].equals("synthetic")) {
+				throw new IllegalArgumentException("Invalid entry: " + line);
+			}
+
+			if (length == mappings.length) {
+				mappings = Arrays.copyOf(mappings, length * 2);
+			}
+
+			try {
+				for (int i = 1; i < 5; i++) {
+					mappings[length + i - 1] = Integer.parseInt(parts[i]);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid entry: " + line, e);
+			}
+
+			mappings[length + 4] = parts[0].equals("synthetic") ? 1 : 0;
+
+			if (length > 0 && compare(mappings, length - SIZE, mappings[length], mappings[length + 1]) >= 0) {
+				throw new IllegalArgumentException("Entries are not in order: " + line);
+			}
+
+			length += SIZE;
+		}
+
+		return new SourceMap(Arrays.copyOf(mappings, length));
+	}
+
+	/**
+	 * Writes the map as text.
+	 * @throws UncheckedIOException When out throws an IOException.
+	 */
+	public void write(@NonNull Appendable out) {
+		try {
+			for (int i = 0; i < this.mappings.length; i += SIZE) {
+				out.append(this.mappings[i + 4] != 0 ? "synthetic " : "original ")
+						.append(Integer.toString(this.mappings[i])).append(' ')
+						.append(Integer.toString(this.mappings[i + 1])).append(' ')
+						.append(Integer.toString(this.mappings[i + 2])).append(' ')
+						.append(Integer.toString(this.mappings[i + 3])).append('\n');
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the mapping covering the position in converted code, or the first mapping of the line if the position is before it,
+	 * or null if there is no code on the line.
+	 * @param line Line of converted code, starting from 1.
+	 * @param column Column of converted code, starting from 0.
+	 */
+	public Mapping find(int line, int column) {
+		// Index of the first mapping after the position
+		int low = 0;
+		int high = this.mappings.length / SIZE;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (compare(this.mappings, middle * SIZE, line, column) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		if (low > 0 && this.mappings[(low - 1) * SIZE] == line) {
+			return getMapping(low - 1);
+		}
+
+		if (low < this.mappings.length / SIZE && this.mappings[low * SIZE] == line) {
+			return getMapping(low);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns all mappings in order of positions in converted code.
+	 */
+	public List<Mapping> getMappings() {
+		return new AbstractList<Mapping>() {
+
+			@Override
+			public Mapping get(int index) {
+				if (index < 0 || index >= size()) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+				}
+
+				return getMapping(index);
+			}
+
+			@Override
+			public int size() {
+				return SourceMap.this.mappings.length / SIZE;
+			}
+
+		};
+	}
+
+	private Mapping getMapping(int index) {
+		int i = index * SIZE;
+
+		return new Mapping(this.mappings[i], this.mappings[i + 1], this.mappings[i + 2], this.mappings[i + 3], this.mappings[i + 4] != 0);
+	}
+
+	/**
+	 * Compares the converted position of the mapping starting at the offset with the specified position.
+	 */
+	private static int compare(int[] mappings, int offset, int line, int column) {
+		int result = Integer.compare(mappings[offset], line);
+
+		return result != 0 ? result : Integer.compare(mappings[offset + 1], column);
+	}
+
+	/**
+	 * A position in converted code and the source position it is mapped to.
+	 */
+	@Getter
+	public static final class Mapping {
+
+		/**
+		 * Line of converted code, starting from 1.
+		 */
+		private final int line;
+		/**
+		 * Column of converted code, starting from 0.
+		 */
+		private final int column;
+		/**
+		 * Line in the source, starting from 1.
+		 */
+		private final int sourceLine;
+		/**
+		 * Column in the source, starting from 0.
+		 */
+		private final int sourceColumn;
+		/**
+		 * Whether the code is added by the conversion and has no matching source token.
+		 */
+		private final boolean synthetic;
+
+		Mapping(int line, int column, int sourceLine, int sourceColumn, boolean synthetic) {
+			this.line = line;
+			this.column = column;
+			this.sourceLine = sourceLine;
+			this.sourceColumn = sourceColumn;
+			this.synthetic = synthetic;
+		}
+
+		@Override
+		public String toString() {
+			return (this.synthetic ? "synthetic " : "original ") + this.line + ":" + this.column + " -> " + this.sourceLine + ":" + this.sourceColumn;
+		}
+
+	}
+
+}
@@ -0,0 +1,213 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Watches directories containing source files of the console app and converts changed files again.
+ * Bursts of events (like saving many files at once, or an editor writing a file in several steps)
+ * are collected until no new events arrive for the debounce delay, then only the changed files are converted.
+ * @author saharNooby
+ * @since 22:05 18.10.2026
+ */
+final class SourceWatcher implements Closeable {
+
+	private final List<String> inputs;
+	private final Path outputRoot;
+	private final Executor executor;
+	private final ConversionCache cache;
+	private final long debounceMillis;
+
+	private final WatchService watchService;
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+	/**
+	 * Registered directories whose new subdirectories must be registered too.
+	 */
+	private final Set<Path> recursiveDirectories = new HashSet<>();
+
+	/**
+	 * Source files collected on the previous conversion, by their absolute paths.
+	 */
+	private Map<Path, Path> files = new HashMap<>();
+
+	/**
+	 * Creates a watcher and registers directories containing source files.
+	 * @param inputs Files, directories or glob patterns, as accepted by {@link SourceFiles#collect(List, Path)}.
+	 * @param outputRoot Directory to put the results into.
+	 * @param executor Executor to run conversions on.
+	 * @param cache Cache of conversion results, may be null.
+	 * @param debounceMillis Time without new events after which changed files are converted.
+	 * @throws IOException When the watch service can not be created, or a directory can not be registered.
+	 */
+	SourceWatcher(@NonNull List<String> inputs, @NonNull Path outputRoot, @NonNull Executor executor, ConversionCache cache, long debounceMillis) throws IOException {
+		this.inputs = inputs;
+		this.outputRoot = outputRoot;
+		this.executor = executor;
+		this.cache = cache;
+		this.debounceMillis = debounceMillis;
+
+		this.watchService = FileSystems.getDefault().newWatchService();
+
+		for (Map.Entry<Path, Boolean> entry : SourceFiles.roots(inputs).entrySet()) {
+			register(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Converts all source files.
+	 * @return Map of source files to conversion results.
+	 * @throws IOException When source files can not be collected.
+	 */
+	Map<Path, BatchResult> convertAll() throws IOException {
+		Map<Path, Path> files = collect();
+
+		this.files = files;
+
+		return LuaJSBatchConverter.convertFiles(files, this.executor, this.cache);
+	}
+
+	/**
+	 * Waits for changes and converts changed files, until the watcher is closed or the thread is interrupted.
+	 * Results of conversion of source files deleted since the previous conversion are deleted too.
+	 * @param listener Listener receiving results of each conversion.
+	 * @throws IOException When source files can not be collected.
+	 */
+	void watch(@NonNull Consumer<Map<Path, BatchResult>> listener) throws IOException {
+		try {
+			while (true) {
+				Set<Path> changed = new HashSet<>();
+
+				// Block until the first event, then collect events until there are none for the debounce delay
+				boolean overflow = poll(this.watchService.take(), changed);
+
+				WatchKey key;
+				while ((key = this.watchService.poll(this.debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+					overflow |= poll(key, changed);
+				}
+
+				Map<Path, BatchResult> results = convertChanged(overflow ? null : changed);
+
+				if (!results.isEmpty()) {
+					listener.accept(results);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// Closed by another thread
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.watchService.close();
+	}
+
+	/**
+	 * Converts changed files and deletes results of deleted ones.
+	 * @param changed Absolute paths of changed files, or null if all files must be converted.
+	 */
+	private Map<Path, BatchResult> convertChanged(Set<Path> changed) throws IOException {
+		Map<Path, Path> files = collect();
+
+		for (Map.Entry<Path, Path> entry : this.files.entrySet()) {
+			if (!files.containsKey(entry.getKey())) {
+				Files.deleteIfExists(entry.getValue());
+			}
+		}
+
+		this.files = files;
+
+		Map<Path, Path> toConvert = new LinkedHashMap<>();
+
+		files.forEach((source, destination) -> {
+			if (changed == null || changed.contains(source)) {
+				toConvert.put(source, destination);
+			}
+		});
+
+		return LuaJSBatchConverter.convertFiles(toConvert, this.executor, this.cache);
+	}
+
+	/**
+	 * Collects source files, making their paths absolute so they can be compared with paths from events.
+	 */
+	private Map<Path, Path> collect() throws IOException {
+		Map<Path, Path> files = new LinkedHashMap<>();
+
+		SourceFiles.collect(this.inputs, this.outputRoot).forEach((source, destination) -> files.put(source.toAbsolutePath().normalize(), destination));
+
+		return files;
+	}
+
+	/**
+	 * Adds paths from events of the key to the set, registering created directories.
+	 * @return Whether some events were lost.
+	 */
+	private boolean poll(@NonNull WatchKey key, @NonNull Set<Path> changed) throws IOException {
+		Path directory = this.directories.get(key);
+
+		boolean overflow = false;
+
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				overflow = true;
+				continue;
+			}
+
+			Path path = directory.resolve((Path) event.context());
+
+			changed.add(path);
+
+			if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && this.recursiveDirectories.contains(directory) && Files.isDirectory(path)) {
+				register(path, true);
+
+				// Files may be created in the new directory before it was registered
+				try (Stream<Path> stream = Files.walk(path)) {
+					stream.filter(Files::isRegularFile).forEach(changed::add);
+				}
+			}
+		}
+
+		if (!key.reset()) {
+			this.directories.remove(key);
+			this.recursiveDirectories.remove(directory);
+		}
+
+		return overflow;
+	}
+
+	private void register(@NonNull Path root, boolean recursive) throws IOException {
+		if (!recursive) {
+			registerDirectory(root, false);
+			return;
+		}
+
+		try (Stream<Path> stream = Files.walk(root)) {
+			Iterator<Path> iterator = stream.filter(Files::isDirectory).iterator();
+
+			while (iterator.hasNext()) {
+				registerDirectory(iterator.next(), true);
+			}
+		}
+	}
+
+	private void registerDirectory(@NonNull Path directory, boolean recursive) throws IOException {
+		WatchKey key = directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+		this.directories.put(key, directory);
+
+		if (recursive) {
+			this.recursiveDirectories.add(directory);
+		}
+	}
+
+}
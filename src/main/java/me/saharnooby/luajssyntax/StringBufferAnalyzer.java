@@ -0,0 +1,223 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.*;
+
+/**
+ * Finds loops that build a string in a local by appending to it with {@code ..=}, like {@code s ..= x},
+ * so parts can be collected into a table and concatenated once after the loop, instead of copying the whole string on each append.
+ * <p>
+ * The local must be declared with {@code let} in the same block as the loop, before it. Inside the loop, the local must be used only
+ * as the left side of {@code ..=}, and the loop must not contain {@code return} or {@code goto}, which could leave it without
+ * storing the result. After the declaration, the local must not be used by nested functions, which could read it during the loop.
+ * @author saharNooby
+ * @since 02:40 19.10.2026
+ */
+final class StringBufferAnalyzer {
+
+	/**
+	 * Returns loops of the program which appends can be buffered, mapped to names of locals they append to, in order of first append.
+	 */
+	static Map<LuaJSSyntaxParser.StatementContext, List<String>> analyze(@NonNull LuaJSSyntaxParser.ProgramContext program) {
+		Map<LuaJSSyntaxParser.StatementContext, List<String>> result = new IdentityHashMap<>();
+
+		analyze(program, result);
+
+		return result;
+	}
+
+	private static void analyze(@NonNull ParseTree tree, @NonNull Map<LuaJSSyntaxParser.StatementContext, List<String>> result) {
+		if (tree instanceof LuaJSSyntaxParser.ProgramContext) {
+			analyze(((LuaJSSyntaxParser.ProgramContext) tree).statement(), result);
+		} else if (tree instanceof LuaJSSyntaxParser.BlockContext) {
+			analyze(((LuaJSSyntaxParser.BlockContext) tree).statement(), result);
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			analyze(tree.getChild(i), result);
+		}
+	}
+
+	private static void analyze(@NonNull List<LuaJSSyntaxParser.StatementContext> statements, @NonNull Map<LuaJSSyntaxParser.StatementContext, List<String>> result) {
+		for (int i = 0; i < statements.size(); i++) {
+			LuaJSSyntaxParser.StatementContext loop = statements.get(i);
+
+			if (!isLoop(loop) || containsExit(loop)) {
+				continue;
+			}
+
+			Set<String> names = new LinkedHashSet<>();
+
+			collectAppended(loop, names);
+
+			for (Iterator<String> iterator = names.iterator(); iterator.hasNext(); ) {
+				if (!isBufferable(statements, i, iterator.next())) {
+					iterator.remove();
+				}
+			}
+
+			if (!names.isEmpty()) {
+				result.put(loop, new ArrayList<>(names));
+			}
+		}
+	}
+
+	private static boolean isBufferable(@NonNull List<LuaJSSyntaxParser.StatementContext> statements, int loopIndex, @NonNull String name) {
+		int declarationIndex = -1;
+
+		for (int i = loopIndex - 1; i >= 0; i--) {
+			if (isDeclaration(statements.get(i), name)) {
+				declarationIndex = i;
+				break;
+			}
+		}
+
+		if (declarationIndex == -1) {
+			return false;
+		}
+
+		for (int i = declarationIndex + 1; i < statements.size(); i++) {
+			if (isUsedInFunction(statements.get(i), name, false)) {
+				return false;
+			}
+		}
+
+		return !isUsedNotInAppend(statements.get(loopIndex), name);
+	}
+
+	/**
+	 * Returns the name of the local the statement appends to with {@code ..=}, or null.
+	 */
+	static String getAppended(@NonNull ParseTree tree) {
+		if (!(tree instanceof LuaJSSyntaxParser.AssginmentOperatorContext)) {
+			return null;
+		}
+
+		LuaJSSyntaxParser.AssginmentOperatorContext ctx = (LuaJSSyntaxParser.AssginmentOperatorContext) tree;
+
+		if (!ctx.assignmentOperator().getText().equals("..=") || ctx.var().NAME() == null || !ctx.var().varSuffix().isEmpty()) {
+			return null;
+		}
+
+		return ctx.var().NAME().getText();
+	}
+
+	private static void collectAppended(@NonNull ParseTree tree, @NonNull Set<String> names) {
+		String name = getAppended(tree);
+
+		if (name != null) {
+			names.add(name);
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			collectAppended(tree.getChild(i), names);
+		}
+	}
+
+	private static boolean isLoop(@NonNull LuaJSSyntaxParser.StatementContext statement) {
+		return statement instanceof LuaJSSyntaxParser.WhileContext
+				|| statement instanceof LuaJSSyntaxParser.DoWhileContext
+				|| statement instanceof LuaJSSyntaxParser.ForContext
+				|| statement instanceof LuaJSSyntaxParser.ForInContext
+				|| statement instanceof LuaJSSyntaxParser.ForOfContext;
+	}
+
+	private static boolean isDeclaration(@NonNull LuaJSSyntaxParser.StatementContext statement, @NonNull String name) {
+		if (!(statement instanceof LuaJSSyntaxParser.LocalVariableDeclarationContext)) {
+			return false;
+		}
+
+		for (TerminalNode node : ((LuaJSSyntaxParser.LocalVariableDeclarationContext) statement).namelist().NAME()) {
+			if (node.getText().equals(name)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isFunction(@NonNull ParseTree tree) {
+		return tree instanceof LuaJSSyntaxParser.FunctionDeclarationContext
+				|| tree instanceof LuaJSSyntaxParser.FunctionLiteralContext
+				|| tree instanceof LuaJSSyntaxParser.ArrowFunctionLiteralContext;
+	}
+
+	/**
+	 * Returns whether the tree has return or goto statements that are not inside nested functions.
+	 */
+	private static boolean containsExit(@NonNull ParseTree tree) {
+		if (tree instanceof LuaJSSyntaxParser.ReturnContext || tree instanceof LuaJSSyntaxParser.GotoContext) {
+			return true;
+		}
+
+		if (isFunction(tree)) {
+			return false;
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			if (containsExit(tree.getChild(i))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isUsedInFunction(@NonNull ParseTree tree, @NonNull String name, boolean inFunction) {
+		if (inFunction && isUse(tree, name)) {
+			return true;
+		}
+
+		boolean function = inFunction || isFunction(tree);
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			if (isUsedInFunction(tree.getChild(i), name, function)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isUsedNotInAppend(@NonNull ParseTree tree, @NonNull String name) {
+		if (isUse(tree, name)) {
+			return !(tree.getParent() instanceof LuaJSSyntaxParser.VarContext && name.equals(getAppended(tree.getParent().getParent())));
+		}
+
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			if (isUsedNotInAppend(tree.getChild(i), name)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isUse(@NonNull ParseTree tree, @NonNull String name) {
+		return isVariableName(tree) && tree.getText().equals(name);
+	}
+
+	/**
+	 * Returns whether the node is the name of a variable, not of a field, method or label.
+	 */
+	static boolean isVariableName(@NonNull ParseTree tree) {
+		if (!(tree instanceof TerminalNode) || ((TerminalNode) tree).getSymbol().getType() != LuaJSSyntaxParser.NAME) {
+			return false;
+		}
+
+		ParseTree parent = tree.getParent();
+
+		if (parent instanceof LuaJSSyntaxParser.FuncnameContext) {
+			return ((LuaJSSyntaxParser.FuncnameContext) parent).NAME(0) == tree;
+		}
+
+		return !(parent instanceof LuaJSSyntaxParser.VarSuffixContext
+				|| parent instanceof LuaJSSyntaxParser.NameAndArgsContext
+				|| parent instanceof LuaJSSyntaxParser.EntryContext
+				|| parent instanceof LuaJSSyntaxParser.LabelDeclarationContext);
+	}
+
+}
@@ -0,0 +1,386 @@
+package me.saharnooby.luajssyntax;
+
+import lombok.NonNull;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.*;
+
+/**
+ * Finds try-catch statements whose body can be converted into a function that is created once,
+ * instead of a closure created on each execution of the statement.
+ * <p>
+ * Such function can not capture locals declared outside of the body, so their values are passed to it as arguments with the same names.
+ * This is possible only when the body does not assign these locals, and has no nested functions capturing them,
+ * since otherwise changes of the values would not be visible outside of the body. Locals assigned inside any function
+ * are not passed either, since a call of that function from the body would change the local, but not the passed value.
+ * Statements that are not inside a function or a loop are executed once per chunk run, and are not hoisted.
+ * @author saharNooby
+ * @since 01:30 19.10.2026
+ */
+final class TryCatchAnalyzer {
+
+	/**
+	 * Max count of arguments of a hoisted function.
+	 */
+	private static final int MAX_PARAMETERS = 32;
+
+	/**
+	 * Outer locals used by try-catch bodies, mapped to scopes declaring them.
+	 */
+	private final Map<LuaJSSyntaxParser.TryCatchContext, Map<String, Scope>> parameters = new IdentityHashMap<>();
+	private final Set<LuaJSSyntaxParser.TryCatchContext> notHoistable = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Scopes of locals, innermost first.
+	 */
+	private final Deque<Scope> scopes = new ArrayDeque<>();
+	/**
+	 * Count of functions and loops the current node is inside of.
+	 */
+	private int depth;
+
+	/**
+	 * Returns hoistable try-catch statements of the program, mapped to names of outer locals their bodies use, in order of first use.
+	 */
+	static Map<LuaJSSyntaxParser.TryCatchContext, List<String>> analyze(@NonNull LuaJSSyntaxParser.ProgramContext program) {
+		TryCatchAnalyzer analyzer = new TryCatchAnalyzer();
+
+		analyzer.scopes.push(new Scope(Scope.Kind.FUNCTION, null));
+		analyzer.visitChildren(program);
+
+		Map<LuaJSSyntaxParser.TryCatchContext, List<String>> result = new IdentityHashMap<>();
+
+		for (Map.Entry<LuaJSSyntaxParser.TryCatchContext, Map<String, Scope>> entry : analyzer.parameters.entrySet()) {
+			if (!analyzer.notHoistable.contains(entry.getKey()) && entry.getValue().size() <= MAX_PARAMETERS && !isAssignedInFunctions(entry.getValue())) {
+				result.put(entry.getKey(), new ArrayList<>(entry.getValue().keySet()));
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns whether any of the locals is assigned inside a function, which may be called while the body runs.
+	 * Functions assigning a local may be declared after the statement, so this is checked after the whole program is visited.
+	 */
+	private static boolean isAssignedInFunctions(@NonNull Map<String, Scope> locals) {
+		for (Map.Entry<String, Scope> entry : locals.entrySet()) {
+			if (entry.getValue().assignedInFunctions.contains(entry.getKey())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private void visit(ParseTree tree) {
+		if (tree instanceof LuaJSSyntaxParser.BlockContext) {
+			visitScoped(tree, Scope.Kind.BLOCK);
+		} else if (tree instanceof LuaJSSyntaxParser.LocalVariableDeclarationContext) {
+			LuaJSSyntaxParser.LocalVariableDeclarationContext ctx = (LuaJSSyntaxParser.LocalVariableDeclarationContext) tree;
+
+			if (ctx.explist() != null) {
+				visit(ctx.explist());
+			}
+
+			declare(ctx.namelist());
+		} else if (tree instanceof LuaJSSyntaxParser.GlobalVariableDeclarationContext) {
+			LuaJSSyntaxParser.GlobalVariableDeclarationContext ctx = (LuaJSSyntaxParser.GlobalVariableDeclarationContext) tree;
+
+			visit(ctx.explist());
+
+			for (LuaJSSyntaxParser.VarContext var : ctx.varlist().var()) {
+				visitAssigned(var);
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.AssginmentOperatorContext) {
+			LuaJSSyntaxParser.AssginmentOperatorContext ctx = (LuaJSSyntaxParser.AssginmentOperatorContext) tree;
+
+			visitAssigned(ctx.var());
+			visit(ctx.exp());
+		} else if (tree instanceof LuaJSSyntaxParser.IncrementContext) {
+			visitAssigned(((LuaJSSyntaxParser.IncrementContext) tree).var());
+		} else if (tree instanceof LuaJSSyntaxParser.DecrementContext) {
+			visitAssigned(((LuaJSSyntaxParser.DecrementContext) tree).var());
+		} else if (tree instanceof LuaJSSyntaxParser.VarContext) {
+			LuaJSSyntaxParser.VarContext ctx = (LuaJSSyntaxParser.VarContext) tree;
+
+			if (ctx.NAME() != null) {
+				reference(ctx.NAME().getText(), false);
+			}
+
+			visitChildren(ctx);
+		} else if (tree instanceof LuaJSSyntaxParser.FunctionDeclarationContext) {
+			visitFunctionDeclaration((LuaJSSyntaxParser.FunctionDeclarationContext) tree);
+		} else if (tree instanceof LuaJSSyntaxParser.FunctionLiteralContext) {
+			LuaJSSyntaxParser.FunctionLiteralContext ctx = (LuaJSSyntaxParser.FunctionLiteralContext) tree;
+
+			enter(Scope.Kind.FUNCTION);
+			declare(ctx.namelist());
+			visitChildren(ctx.block());
+			exit();
+		} else if (tree instanceof LuaJSSyntaxParser.ArrowFunctionLiteralContext) {
+			LuaJSSyntaxParser.ArrowFunctionLiteralContext ctx = (LuaJSSyntaxParser.ArrowFunctionLiteralContext) tree;
+
+			enter(Scope.Kind.FUNCTION);
+			declare(ctx.namelist());
+
+			if (ctx.NAME() != null) {
+				this.scopes.peek().names.add(ctx.NAME().getText());
+			}
+
+			visit(ctx.exp() != null ? ctx.exp() : ctx.block());
+			exit();
+		} else if (tree instanceof LuaJSSyntaxParser.IfContext) {
+			LuaJSSyntaxParser.IfContext ctx = (LuaJSSyntaxParser.IfContext) tree;
+
+			visit(ctx.exp());
+
+			for (LuaJSSyntaxParser.StatementContext statement : ctx.statement()) {
+				visitScoped(statement, Scope.Kind.BLOCK);
+			}
+		} else if (tree instanceof LuaJSSyntaxParser.WhileContext) {
+			LuaJSSyntaxParser.WhileContext ctx = (LuaJSSyntaxParser.WhileContext) tree;
+
+			visit(ctx.exp());
+			visitLoopBody(ctx.statement());
+		} else if (tree instanceof LuaJSSyntaxParser.DoWhileContext) {
+			LuaJSSyntaxParser.DoWhileContext ctx = (LuaJSSyntaxParser.DoWhileContext) tree;
+
+			// The condition is printed after the body, in its scope
+			enter(Scope.Kind.LOOP);
+			visitWithoutScope(ctx.statement());
+			visit(ctx.exp());
+			exit();
+		} else if (tree instanceof LuaJSSyntaxParser.ForContext) {
+			LuaJSSyntaxParser.ForContext ctx = (LuaJSSyntaxParser.ForContext) tree;
+
+			this.scopes.push(new Scope(Scope.Kind.BLOCK, null));
+
+			if (ctx.init != null) {
+				visit(ctx.init);
+			}
+
+			if (ctx.exp() != null) {
+				visit(ctx.exp());
+			}
+
+			// The update statement is printed after the body, in its scope
+			enter(Scope.Kind.LOOP);
+			visitWithoutScope(ctx.body);
+
+			if (ctx.after != null) {
+				visit(ctx.after);
+			}
+
+			exit();
+
+			this.scopes.pop();
+		} else if (tree instanceof LuaJSSyntaxParser.ForInContext) {
+			LuaJSSyntaxParser.ForInContext ctx = (LuaJSSyntaxParser.ForInContext) tree;
+
+			visit(ctx.exp());
+
+			enter(Scope.Kind.LOOP);
+			declare(ctx.namelist());
+			visitWithoutScope(ctx.statement());
+			exit();
+		} else if (tree instanceof LuaJSSyntaxParser.ForOfContext) {
+			LuaJSSyntaxParser.ForOfContext ctx = (LuaJSSyntaxParser.ForOfContext) tree;
+
+			visit(ctx.exp());
+
+			enter(Scope.Kind.LOOP);
+
+			for (TerminalNode name : ctx.NAME()) {
+				this.scopes.peek().names.add(name.getText());
+			}
+
+			// Index variable is named "_" when not specified
+			if (ctx.NAME().size() == 1) {
+				this.scopes.peek().names.add("_");
+			}
+
+			visitWithoutScope(ctx.statement());
+			exit();
+		} else if (tree instanceof LuaJSSyntaxParser.TryCatchContext) {
+			LuaJSSyntaxParser.TryCatchContext ctx = (LuaJSSyntaxParser.TryCatchContext) tree;
+
+			if (this.depth > 0) {
+				this.parameters.put(ctx, new LinkedHashMap<>());
+			}
+
+			this.scopes.push(new Scope(Scope.Kind.TRY, ctx));
+			visitChildren(ctx.block(0));
+			this.scopes.pop();
+
+			this.scopes.push(new Scope(Scope.Kind.BLOCK, null));
+			this.scopes.peek().names.add(ctx.NAME().getText());
+			visitChildren(ctx.block(1));
+			this.scopes.pop();
+		} else {
+			visitChildren(tree);
+		}
+	}
+
+	private void visitChildren(ParseTree tree) {
+		for (int i = 0; i < tree.getChildCount(); i++) {
+			visit(tree.getChild(i));
+		}
+	}
+
+	private void visitScoped(ParseTree tree, Scope.Kind kind) {
+		this.scopes.push(new Scope(kind, null));
+		visitWithoutScope(tree);
+		this.scopes.pop();
+	}
+
+	/**
+	 * Visits the statement in the current scope; a block statement is printed without do-end as a body of a loop.
+	 */
+	private void visitWithoutScope(ParseTree tree) {
+		if (tree instanceof LuaJSSyntaxParser.BlockStatementContext) {
+			visitChildren(((LuaJSSyntaxParser.BlockStatementContext) tree).block());
+		} else if (tree instanceof LuaJSSyntaxParser.BlockContext) {
+			visitChildren(tree);
+		} else {
+			visit(tree);
+		}
+	}
+
+	private void visitLoopBody(LuaJSSyntaxParser.StatementContext body) {
+		enter(Scope.Kind.LOOP);
+		visitWithoutScope(body);
+		exit();
+	}
+
+	private void visitFunctionDeclaration(LuaJSSyntaxParser.FunctionDeclarationContext ctx) {
+		List<TerminalNode> names = ctx.funcname().NAME();
+
+		// "function a()" assigns the variable, "function a:b()" only reads it
+		reference(names.get(0).getText(), names.size() == 1);
+
+		enter(Scope.Kind.FUNCTION);
+		declare(ctx.namelist());
+
+		if (names.size() > 1) {
+			this.scopes.peek().names.add("self");
+		}
+
+		visitChildren(ctx.block());
+		exit();
+	}
+
+	/**
+	 * Visits the assignment target. Only a plain name is an assignment of a variable; assigning a field reads the variable.
+	 */
+	private void visitAssigned(LuaJSSyntaxParser.VarContext var) {
+		if (var.NAME() != null && var.varSuffix().isEmpty()) {
+			reference(var.NAME().getText(), true);
+		} else {
+			visit(var);
+		}
+	}
+
+	private void enter(Scope.Kind kind) {
+		this.scopes.push(new Scope(kind, null));
+		this.depth++;
+	}
+
+	private void exit() {
+		this.scopes.pop();
+		this.depth--;
+	}
+
+	private void declare(LuaJSSyntaxParser.NamelistContext namelist) {
+		if (namelist == null) {
+			return;
+		}
+
+		for (TerminalNode name : namelist.NAME()) {
+			this.scopes.peek().names.add(name.getText());
+		}
+	}
+
+	/**
+	 * Records use of the variable by the current node in all try-catch bodies between the node and the declaration of the variable.
+	 * Globals are not recorded, since hoisted functions access them directly.
+	 */
+	private void reference(@NonNull String name, boolean assignment) {
+		List<Scope> crossedTries = null;
+		List<Boolean> crossedFunctions = null;
+
+		boolean insideFunction = false;
+
+		for (Scope scope : this.scopes) {
+			if (scope.names.contains(name)) {
+				if (assignment && insideFunction) {
+					scope.assignedInFunctions.add(name);
+				}
+
+				if (crossedTries != null) {
+					for (int i = 0; i < crossedTries.size(); i++) {
+						LuaJSSyntaxParser.TryCatchContext tryCatch = crossedTries.get(i).tryCatch;
+
+						if (assignment || crossedFunctions.get(i)) {
+							this.notHoistable.add(tryCatch);
+						} else {
+							Map<String, Scope> locals = this.parameters.get(tryCatch);
+
+							if (locals != null) {
+								locals.putIfAbsent(name, scope);
+							}
+						}
+					}
+				}
+
+				return;
+			}
+
+			if (scope.kind == Scope.Kind.FUNCTION) {
+				insideFunction = true;
+			} else if (scope.kind == Scope.Kind.TRY) {
+				if (crossedTries == null) {
+					crossedTries = new ArrayList<>();
+					crossedFunctions = new ArrayList<>();
+				}
+
+				crossedTries.add(scope);
+				crossedFunctions.add(insideFunction);
+			}
+		}
+	}
+
+	private static final class Scope {
+
+		private final Kind kind;
+		/**
+		 * Statement which body this scope is, if the kind is {@link Kind#TRY}.
+		 */
+		private final LuaJSSyntaxParser.TryCatchContext tryCatch;
+		private final Set<String> names = new HashSet<>();
+		/**
+		 * Names of locals of this scope that are assigned inside nested functions.
+		 */
+		private final Set<String> assignedInFunctions = new HashSet<>();
+
+		private Scope(@NonNull Kind kind, LuaJSSyntaxParser.TryCatchContext tryCatch) {
+			this.kind = kind;
+			this.tryCatch = tryCatch;
+		}
+
+		private enum Kind {
+
+			BLOCK,
+			LOOP,
+			FUNCTION,
+			/**
+			 * Body of a try-catch statement.
+			 */
+			TRY
+
+		}
+
+	}
+
+}
@@ -1,6 +1,8 @@
 package me.saharnooby.luajssyntax.util;
 
 import lombok.NonNull;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
 
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
@@ -23,6 +25,92 @@ public final class HashUtil {
 		}
 	}
 
+	/**
+	 * Computes MD5 hash of the UTF-8 representation of the stream contents without copying them into a String.
+	 * The result is the same as of {@link #md5(String)} for the same text. Position of the stream is not changed.
+	 */
+	public static String md5(@NonNull CharStream in) {
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+
+		byte[] buf = new byte[8192];
+		int length = 0;
+
+		int index = in.index();
+
+		in.seek(0);
+
+		int c;
+		while ((c = in.LA(1)) != IntStream.EOF) {
+			in.consume();
+
+			if (length > buf.length - 4) {
+				digest.update(buf, 0, length);
+				length = 0;
+			}
+
+			if (c < 0x80) {
+				buf[length++] = (byte) c;
+			} else if (c < 0x800) {
+				buf[length++] = (byte) (0xC0 | (c >> 6));
+				buf[length++] = (byte) (0x80 | (c & 0x3F));
+			} else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+				// Unpaired surrogates are replaced the same way String.getBytes does
+				buf[length++] = '?';
+			} else if (c < 0x10000) {
+				buf[length++] = (byte) (0xE0 | (c >> 12));
+				buf[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buf[length++] = (byte) (0x80 | (c & 0x3F));
+			} else {
+				buf[length++] = (byte) (0xF0 | (c >> 18));
+				buf[length++] = (byte) (0x80 | ((c >> 12) & 0x3F));
+				buf[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buf[length++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+
+		digest.update(buf, 0, length);
+
+		in.seek(index);
+
+		return hashToString(digest.digest());
+	}
+
+	/**
+	 * Computes 32-bit FNV-1a hash over UTF-16 code units of the stream contents, in hex padded to 8 digits.
+	 * Position of the stream is not changed.
+	 */
+	public static String fnv1a32(@NonNull CharStream in) {
+		int hash = 0x811C9DC5;
+
+		int index = in.index();
+
+		in.seek(0);
+
+		int c;
+		while ((c = in.LA(1)) != IntStream.EOF) {
+			in.consume();
+
+			if (c >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				hash = (hash ^ Character.highSurrogate(c)) * 0x01000193;
+				hash = (hash ^ Character.lowSurrogate(c)) * 0x01000193;
+			} else {
+				hash = (hash ^ c) * 0x01000193;
+			}
+		}
+
+		in.seek(index);
+
+		String hex = Integer.toHexString(hash);
+
+		return "00000000".substring(hex.length()) + hex;
+	}
+
 	private static String hashToString(byte[] hash) {
 		StringBuilder builder = new StringBuilder(new BigInteger(1, hash).toString(16));
 
@@ -0,0 +1,44 @@
+package me.saharnooby.luajssyntax.util;
+
+import lombok.NonNull;
+
+import java.util.function.Supplier;
+
+/**
+ * A value that is computed on first request and then remembered.
+ * Not thread-safe.
+ * @author saharNooby
+ * @since 20:40 18.10.2026
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+	private Supplier<T> supplier;
+	private T value;
+
+	private Lazy(@NonNull Supplier<T> supplier) {
+		this.supplier = supplier;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> Lazy<T> of(@NonNull Supplier<T> supplier) {
+		return supplier instanceof Lazy ? (Lazy<T>) supplier : new Lazy<>(supplier);
+	}
+
+	@Override
+	public T get() {
+		if (this.supplier != null) {
+			this.value = this.supplier.get();
+			this.supplier = null;
+		}
+
+		return this.value;
+	}
+
+	/**
+	 * @return True if the value was already computed.
+	 */
+	public boolean isComputed() {
+		return this.supplier == null;
+	}
+
+}
@@ -5,50 +5,481 @@ import lombok.Setter;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 
 /**
+ * Prints code to the destination, inserting line breaks to keep printed code on the expected lines.
+ * Printed code is collected in an internal buffer and written to the destination in bulk,
+ * so {@link #flush()} must be called after printing.
+ * <p>
+ * When minifying, spaces and {@code ;} separators are printed only where Lua needs them to separate tokens or statements,
+ * and a single line break is printed instead of padding when the expected line increases, so each printed line starts
+ * with code from a known source line, see {@link #getSourceLines()}. Chars printed with {@link #printLiteral(String)} are kept as is.
+ * <p>
+ * After {@link #recordMappings()} is called, the printer maps positions of printed tokens to source positions set by
+ * {@link #setSourcePosition(int, int)} and {@link #setSyntheticPosition(int, int)}, see {@link #getMappings()}.
+ * <p>
+ * After {@link #holdOutput()} is called, printed code is kept in the buffer until {@link #insertAtStart(String)},
+ * so code that depends on the printed code can be inserted before it.
  * @author saharNooby
  * @since 19:01 21.08.2019
  */
 public final class Printer {
 
+	private static final int INITIAL_CAPACITY = 8192;
+
+	/**
+	 * Count of ints per mapping: printed line, printed column, source line, source column and 1 for synthesized code or 0 otherwise.
+	 */
+	public static final int MAPPING_SIZE = 5;
+
 	private final Appendable destination;
 
-	private int line = 1;
+	private char[] buffer = new char[INITIAL_CAPACITY];
+	private int length;
+
+	private int line;
 	@Setter
 	private int expectedLine;
 
+	private final boolean minify;
+	/**
+	 * Last printed char, 0 if nothing is printed yet. Used only when minifying.
+	 */
+	private char last;
+	/**
+	 * Whether the last printed token is a number, so a following {@code .} would be parsed as its part.
+	 */
+	private boolean lastNumber;
+	private boolean pendingSpace;
+	private boolean pendingSeparator;
+	/**
+	 * Source lines printed lines start with, used only when minifying.
+	 */
+	private int[] sourceLines = new int[16];
+	private int printedLines;
+
+	/**
+	 * Recorded mappings, {@link #MAPPING_SIZE} ints per mapping, null if mappings are not recorded.
+	 */
+	private int[] mappings;
+	private int mappingsLength;
+	private int sourceLine = 1;
+	private int sourceColumn;
+	/**
+	 * Whether the next printed token is mapped as synthesized code.
+	 */
+	private boolean synthetic = true;
+	/**
+	 * Whether the next printed char starts the code printed by a single call, used only when minifying.
+	 */
+	private boolean mappingPending;
+	/**
+	 * Number of the line the printed code currently ends at, and the offset of its start, counting flushed chars.
+	 */
+	private int printedLine;
+	private long printedLineStart;
+	private long flushedLength;
+	/**
+	 * Whether printed code is kept in the buffer, see {@link #holdOutput()}.
+	 */
+	private boolean held;
+	private int heldLine;
+
 	public Printer(@NonNull Appendable destination) {
+		this(destination, 1);
+	}
+
+	/**
+	 * @param destination Destination for the printed code.
+	 * @param minify Whether redundant spaces, separators and line breaks are dropped.
+	 */
+	public Printer(@NonNull Appendable destination, boolean minify) {
+		this.destination = destination;
+		this.line = 1;
+		this.printedLine = 1;
+		this.minify = minify;
+	}
+
+	/**
+	 * @param destination Destination for the printed code.
+	 * @param line Number of the line the destination currently ends at.
+	 */
+	public Printer(@NonNull Appendable destination, int line) {
 		this.destination = destination;
+		this.line = line;
+		this.printedLine = line;
+		this.minify = false;
 	}
 
 	public void print(String s) {
+		if (this.minify) {
+			this.mappingPending = true;
+
+			for (int i = 0; i < s.length(); i++) {
+				printMinified(s.charAt(i));
+			}
+
+			return;
+		}
+
 		ensureCorrectLine();
+
+		if (this.mappings != null) {
+			// Leading spaces are not a part of the token
+			for (int i = 0; i < s.length(); i++) {
+				if (s.charAt(i) != ' ') {
+					addMapping(i);
+					break;
+				}
+			}
+		}
+
 		append(s);
 	}
 
+	public void print(char c) {
+		if (this.minify) {
+			this.mappingPending = true;
+			printMinified(c);
+			return;
+		}
+
+		ensureCorrectLine();
+
+		if (this.mappings != null && c != ' ') {
+			addMapping(0);
+		}
+
+		ensureCapacity(1);
+		this.buffer[this.length++] = c;
+	}
+
+	/**
+	 * Prints a token which chars must be kept as is when minifying, like a string literal.
+	 */
+	public void printLiteral(String s) {
+		if (!this.minify || s.isEmpty()) {
+			print(s);
+			return;
+		}
+
+		this.mappingPending = true;
+
+		startToken(s.charAt(0));
+		append(s);
+
+		this.last = s.charAt(s.length() - 1);
+	}
+
 	public void println(String s) {
 		if (!s.isEmpty()) {
 			print(s);
 		}
 
-		append("\n");
+		if (this.minify) {
+			this.pendingSpace = true;
+			return;
+		}
 
-		this.line++;
+		appendLineBreaks(1);
 	}
 
-	private void ensureCorrectLine() {
-		while (this.expectedLine > this.line) {
-			println("");
+	/**
+	 * Starts recording mappings of printed tokens to source positions. Must be called before printing.
+	 */
+	public void recordMappings() {
+		this.mappings = new int[MAPPING_SIZE * 64];
+	}
+
+	/**
+	 * Sets the source position following tokens are mapped to, and the expected line. The next printed token is mapped as the code
+	 * at that position, and tokens after it are mapped as synthesized code, until the position is set again.
+	 * @param line Source line, starting from 1.
+	 * @param column Source column, starting from 0.
+	 */
+	public void setSourcePosition(int line, int column) {
+		this.expectedLine = line;
+		this.sourceLine = line;
+		this.sourceColumn = column;
+		this.synthetic = false;
+	}
+
+	/**
+	 * Sets the source position following tokens are mapped to as synthesized code, which has no matching source token,
+	 * until the position is set again. Unlike {@link #setSourcePosition(int, int)}, the expected line is not changed.
+	 */
+	public void setSyntheticPosition(int line, int column) {
+		this.sourceLine = line;
+		this.sourceColumn = column;
+		this.synthetic = true;
+	}
+
+	/**
+	 * Returns recorded mappings of printed tokens to source positions in order of printing, {@link #MAPPING_SIZE} ints per mapping.
+	 * A mapping is added when the printed line, the source position or whether the code is synthesized changes.
+	 * Tokens printed before a source position is set are mapped to the start of the source as synthesized code.
+	 * Lines start from 1, columns start from 0 and count chars.
+	 * @throws IllegalStateException When mappings are not recorded.
+	 */
+	public int[] getMappings() {
+		if (this.mappings == null) {
+			throw new IllegalStateException("Mappings are not recorded");
 		}
+
+		return Arrays.copyOf(this.mappings, this.mappingsLength);
 	}
 
-	private void append(String s) {
+	/**
+	 * Keeps printed code in the buffer instead of writing it to the destination until {@link #insertAtStart(String)} is called.
+	 * @throws IllegalStateException When code was already printed.
+	 */
+	public void holdOutput() {
+		if (this.length > 0 || this.flushedLength > 0) {
+			throw new IllegalStateException("Code was already printed");
+		}
+
+		this.held = true;
+		this.heldLine = this.printedLine;
+	}
+
+	/**
+	 * Inserts code before all printed code, and stops holding printed code in the buffer.
+	 * The code is inserted as is, must not contain line breaks, and is mapped as synthesized code at the start of the source.
+	 * Must be called after all code is printed.
+	 * @throws IllegalStateException When printed code is not held.
+	 */
+	public void insertAtStart(@NonNull String code) {
+		if (!this.held) {
+			throw new IllegalStateException("Printed code is not held");
+		}
+
+		this.held = false;
+
+		int count = code.length();
+
+		if (count == 0) {
+			return;
+		}
+
+		int firstLine = this.heldLine;
+
+		if (this.length + count > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, this.length + count);
+		}
+
+		System.arraycopy(this.buffer, 0, this.buffer, count, this.length);
+		code.getChars(0, count, this.buffer, 0);
+		this.length += count;
+
+		if (this.printedLine > firstLine) {
+			this.printedLineStart += count;
+		}
+
+		if (this.mappings != null) {
+			for (int i = 0; i < this.mappingsLength && this.mappings[i] == firstLine; i += MAPPING_SIZE) {
+				this.mappings[i + 1] += count;
+			}
+
+			if (this.mappingsLength + MAPPING_SIZE > this.mappings.length) {
+				this.mappings = Arrays.copyOf(this.mappings, this.mappings.length * 2);
+			}
+
+			System.arraycopy(this.mappings, 0, this.mappings, MAPPING_SIZE, this.mappingsLength);
+			this.mappings[0] = firstLine;
+			this.mappings[1] = 0;
+			this.mappings[2] = 1;
+			this.mappings[3] = 0;
+			this.mappings[4] = 1;
+			this.mappingsLength += MAPPING_SIZE;
+		}
+	}
+
+	/**
+	 * Returns source lines which printed lines start with, by index of the printed line starting from 0.
+	 * Lines are recorded only when minifying.
+	 */
+	public int[] getSourceLines() {
+		return Arrays.copyOf(this.sourceLines, this.printedLines);
+	}
+
+	/**
+	 * Writes all buffered code to the destination.
+	 * @throws UncheckedIOException When the destination throws an IOException.
+	 */
+	public void flush() {
+		if (this.length == 0) {
+			return;
+		}
+
 		try {
-			this.destination.append(s);
+			if (this.destination instanceof StringBuilder) {
+				((StringBuilder) this.destination).append(this.buffer, 0, this.length);
+			} else if (this.destination instanceof Writer) {
+				((Writer) this.destination).write(this.buffer, 0, this.length);
+			} else {
+				this.destination.append(CharBuffer.wrap(this.buffer, 0, this.length));
+			}
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
+
+		this.flushedLength += this.length;
+		this.length = 0;
+	}
+
+	private void printMinified(char c) {
+		if (c == ' ' || c == '\n') {
+			this.pendingSpace = true;
+			return;
+		}
+
+		if (c == ';') {
+			this.pendingSeparator = true;
+			return;
+		}
+
+		startToken(c);
+		ensureCapacity(1);
+		this.buffer[this.length++] = c;
+
+		this.last = c;
+	}
+
+	/**
+	 * Prints the separator, the space or the line break needed before the char when minifying.
+	 */
+	private void startToken(char c) {
+		if (this.last == 0) {
+			this.line = Math.max(this.line, this.expectedLine);
+
+			addSourceLine();
+		} else {
+			// Without the separator, the parenthesis would be parsed as a call of the end of the previous statement
+			if (this.pendingSeparator && c == '(') {
+				append(";");
+			}
+
+			if (this.expectedLine > this.line) {
+				append("\n");
+
+				this.line = this.expectedLine;
+				this.printedLine++;
+				this.printedLineStart = this.flushedLength + this.length;
+
+				addSourceLine();
+			} else if ((this.pendingSpace || this.pendingSeparator) && isSpaceNeeded(c)) {
+				append(" ");
+			}
+		}
+
+		if (isWordChar(c) && !isWordChar(this.last)) {
+			this.lastNumber = c >= '0' && c <= '9';
+		}
+
+		this.pendingSpace = false;
+		this.pendingSeparator = false;
+
+		if (this.mappings != null && this.mappingPending) {
+			addMapping(0);
+
+			this.mappingPending = false;
+		}
+	}
+
+	private boolean isSpaceNeeded(char next) {
+		if (isWordChar(this.last)) {
+			return isWordChar(next) || next == '.' && this.lastNumber;
+		}
+
+		// Doubled chars and chars followed by "=" may form other tokens, like "--", "..", "::" or "=="; "[[" and "[=" start long strings
+		return "-./=<>:[~".indexOf(this.last) != -1 && (next == this.last || next == '=');
+	}
+
+	private static boolean isWordChar(char c) {
+		return c == '_' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c > 127 && Character.isLetterOrDigit(c);
+	}
+
+	private void addSourceLine() {
+		if (this.printedLines == this.sourceLines.length) {
+			this.sourceLines = Arrays.copyOf(this.sourceLines, this.printedLines * 2);
+		}
+
+		this.sourceLines[this.printedLines++] = this.line;
+	}
+
+	/**
+	 * Maps the token starting at the offset from the end of printed code to the current source position,
+	 * unless the previous mapping already covers it.
+	 */
+	private void addMapping(int offset) {
+		int column = (int) (this.flushedLength + this.length + offset - this.printedLineStart);
+		int synthetic = this.synthetic ? 1 : 0;
+
+		// Tokens after the one at the source position are synthesized
+		this.synthetic = true;
+
+		int last = this.mappingsLength - MAPPING_SIZE;
+
+		if (last >= 0 && this.mappings[last] == this.printedLine && this.mappings[last + 2] == this.sourceLine
+				&& this.mappings[last + 3] == this.sourceColumn && this.mappings[last + 4] == synthetic) {
+			return;
+		}
+
+		if (this.mappingsLength == this.mappings.length) {
+			this.mappings = Arrays.copyOf(this.mappings, this.mappingsLength * 2);
+		}
+
+		this.mappings[this.mappingsLength++] = this.printedLine;
+		this.mappings[this.mappingsLength++] = column;
+		this.mappings[this.mappingsLength++] = this.sourceLine;
+		this.mappings[this.mappingsLength++] = this.sourceColumn;
+		this.mappings[this.mappingsLength++] = synthetic;
+	}
+
+	private void ensureCorrectLine() {
+		if (this.expectedLine > this.line) {
+			appendLineBreaks(this.expectedLine - this.line);
+		}
+	}
+
+	private void appendLineBreaks(int count) {
+		ensureCapacity(count);
+		Arrays.fill(this.buffer, this.length, this.length + count, '\n');
+		this.length += count;
+		this.line += count;
+		this.printedLine += count;
+		this.printedLineStart = this.flushedLength + this.length;
+	}
+
+	private void append(String s) {
+		int count = s.length();
+		ensureCapacity(count);
+		s.getChars(0, count, this.buffer, this.length);
+		this.length += count;
+	}
+
+	/**
+	 * Flushes the buffer if there is not enough space for the specified count of chars,
+	 * and grows it if the count exceeds its capacity. Held code is not flushed, so the buffer is grown instead.
+	 */
+	private void ensureCapacity(int count) {
+		if (this.length + count <= this.buffer.length) {
+			return;
+		}
+
+		if (this.held) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(this.length + count, this.buffer.length * 2));
+			return;
+		}
+
+		flush();
+
+		if (count > this.buffer.length) {
+			this.buffer = new char[Math.max(count, this.buffer.length * 2)];
+		}
 	}
 
 }
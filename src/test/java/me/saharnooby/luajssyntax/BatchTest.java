@@ -0,0 +1,122 @@
+package me.saharnooby.luajssyntax;
+
+import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author saharNooby
+ * @since 15:10 18.10.2026
+ */
+class BatchTest {
+
+	@Test
+	void testSources() {
+		Map<String, String> sources = new LinkedHashMap<>();
+
+		for (int i = 0; i < 100; i++) {
+			sources.put("valid" + i, "let x = " + i);
+		}
+
+		sources.put("invalid", "let x = 1 # 2");
+
+		Map<String, BatchResult> results = LuaJSBatchConverter.convert(sources);
+
+		Assertions.assertEquals(new ArrayList<>(sources.keySet()), new ArrayList<>(results.keySet()));
+
+		for (int i = 0; i < 100; i++) {
+			BatchResult result = results.get("valid" + i);
+
+			Assertions.assertTrue(result.isSuccess());
+			Assertions.assertEquals(LuaJSToLua.convert(sources.get("valid" + i)), result.getOutput());
+		}
+
+		Assertions.assertFalse(results.get("invalid").isSuccess());
+		Assertions.assertNull(results.get("invalid").getOutput());
+		Assertions.assertTrue(results.get("invalid").getError() instanceof InvalidSyntaxException);
+	}
+
+	@Test
+	void testFiles() throws IOException {
+		Path src = Files.createTempDirectory("luajs-src");
+		Path out = Files.createTempDirectory("luajs-out");
+
+		Files.createDirectories(src.resolve("nested"));
+		Files.write(src.resolve("a.ljs"), "let a = 1".getBytes(StandardCharsets.UTF_8));
+		Files.write(src.resolve("nested/b.ljs"), "let b = 2".getBytes(StandardCharsets.UTF_8));
+		Files.write(src.resolve("nested/invalid.ljs"), "let = 3".getBytes(StandardCharsets.UTF_8));
+		Files.write(src.resolve("ignored.txt"), "not a source".getBytes(StandardCharsets.UTF_8));
+
+		Map<Path, Path> files = SourceFiles.collect(Collections.singletonList(src.toString()), out);
+
+		Assertions.assertEquals(3, files.size());
+		Assertions.assertEquals(out.resolve("nested").resolve("b.lua"), files.get(src.resolve("nested/b.ljs")));
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		Map<Path, BatchResult> results;
+
+		try {
+			results = LuaJSBatchConverter.convertFiles(files, executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		Assertions.assertTrue(results.get(src.resolve("a.ljs")).isSuccess());
+		Assertions.assertTrue(results.get(src.resolve("nested/b.ljs")).isSuccess());
+		Assertions.assertFalse(results.get(src.resolve("nested/invalid.ljs")).isSuccess());
+
+		Assertions.assertEquals("local a = 1;", new String(Files.readAllBytes(out.resolve("a.lua")), StandardCharsets.UTF_8));
+		Assertions.assertEquals("local b = 2;", new String(Files.readAllBytes(out.resolve("nested/b.lua")), StandardCharsets.UTF_8));
+		Assertions.assertFalse(Files.exists(out.resolve("nested/invalid.lua")));
+	}
+
+	@Test
+	void testGlob() throws IOException {
+		Path src = Files.createTempDirectory("luajs-src");
+		Path out = Files.createTempDirectory("luajs-out");
+
+		Files.createDirectories(src.resolve("nested"));
+		Files.write(src.resolve("a.js"), "let a = 1".getBytes(StandardCharsets.UTF_8));
+		Files.write(src.resolve("nested/b.js"), "let b = 2".getBytes(StandardCharsets.UTF_8));
+		Files.write(src.resolve("c.ljs"), "let c = 3".getBytes(StandardCharsets.UTF_8));
+
+		Map<Path, Path> files = SourceFiles.collect(Collections.singletonList(src + "/**.js"), out);
+
+		Map<Path, Path> expected = new HashMap<>();
+		expected.put(src.resolve("a.js"), out.resolve("a.lua"));
+		expected.put(src.resolve("nested/b.js"), out.resolve("nested/b.lua"));
+
+		Assertions.assertEquals(expected, new HashMap<>(files));
+	}
+
+	@Test
+	void testDestinationCollision() throws IOException {
+		Path src = Files.createTempDirectory("luajs-src");
+		Path out = Files.createTempDirectory("luajs-out");
+
+		Files.createDirectories(src.resolve("first"));
+		Files.createDirectories(src.resolve("second"));
+		Files.write(src.resolve("first/a.ljs"), "let a = 1".getBytes(StandardCharsets.UTF_8));
+		Files.write(src.resolve("second/a.ljs"), "let a = 2".getBytes(StandardCharsets.UTF_8));
+
+		// Files are mapped directly into the output root, and both are named a.lua there
+		List<String> inputs = Arrays.asList(src.resolve("first/a.ljs").toString(), src.resolve("second/a.ljs").toString());
+
+		IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, () -> SourceFiles.collect(inputs, out));
+		Assertions.assertTrue(e.getMessage().contains(out.resolve("a.lua").toString()), e.getMessage());
+
+		// Directories keep relative paths, and the same file may be matched by several inputs
+		Assertions.assertEquals(2, SourceFiles.collect(Collections.singletonList(src.toString()), out).size());
+		Assertions.assertEquals(1, SourceFiles.collect(Arrays.asList(src + "/first/**.ljs", src.resolve("first").toString()), out).size());
+	}
+
+}
@@ -0,0 +1,43 @@
+package me.saharnooby.luajssyntax;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes the LuaJS parts of the converter test cases as separate sources, used by the cds profile to train the class data sharing archive.
+ * Usage: {@code CdsCorpus <directory with test cases> <output directory>}
+ * @author saharNooby
+ * @since 06:20 19.10.2026
+ */
+public final class CdsCorpus {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Usage: CdsCorpus <directory with test cases> <output directory>");
+		}
+
+		Path output = Paths.get(args[1]);
+
+		Files.createDirectories(output);
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(args[0]), "*.txt")) {
+			for (Path testCase : stream) {
+				String text = new String(Files.readAllBytes(testCase), StandardCharsets.UTF_8);
+
+				// Everything before the "===" separator line, as in BenchmarkInputs
+				int separator = text.indexOf("\n===");
+
+				String source = separator == -1 ? text : text.substring(0, separator + 1);
+
+				String name = testCase.getFileName().toString().replace(".txt", SourceFiles.SOURCE_EXTENSION);
+
+				Files.write(output.resolve(name), source.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+}
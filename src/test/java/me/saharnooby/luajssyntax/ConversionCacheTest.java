@@ -0,0 +1,75 @@
+package me.saharnooby.luajssyntax;
+
+import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * @author saharNooby
+ * @since 16:02 18.10.2026
+ */
+class ConversionCacheTest {
+
+	@Test
+	void testMemory() {
+		ConversionCache cache = new ConversionCache(2);
+
+		String a = "let a = 1";
+		String b = "let b = 2";
+		String c = "let c = 3";
+
+		Assertions.assertEquals(LuaJSToLua.convert(a), cache.convert(a));
+		Assertions.assertEquals(LuaJSToLua.convert(a), cache.convert(a));
+		Assertions.assertEquals(1, cache.getMisses());
+		Assertions.assertEquals(1, cache.getMemoryHits());
+
+		cache.convert(b);
+		// a was used more recently than b, so b is evicted
+		cache.convert(a);
+		cache.convert(c);
+
+		Assertions.assertEquals(1, cache.getEvictions());
+		Assertions.assertEquals(2, cache.getMemorySize());
+
+		cache.convert(a);
+		Assertions.assertEquals(3, cache.getMemoryHits());
+
+		cache.convert(b);
+		Assertions.assertEquals(4, cache.getMisses());
+		Assertions.assertEquals(0, cache.getDiskHits());
+	}
+
+	@Test
+	void testDisk() throws IOException {
+		Path directory = Files.createTempDirectory("luajs-cache");
+
+		String source = "let x = 1 .. 2";
+
+		ConversionCache first = new ConversionCache(16, directory);
+		first.convert(source);
+
+		ConversionCache second = new ConversionCache(16, directory);
+
+		Assertions.assertEquals(LuaJSToLua.convert(source), second.convert(source));
+		Assertions.assertEquals(1, second.getDiskHits());
+		Assertions.assertEquals(0, second.getMisses());
+
+		second.convert(source);
+		Assertions.assertEquals(1, second.getMemoryHits());
+	}
+
+	@Test
+	void testFailuresNotCached() {
+		ConversionCache cache = new ConversionCache(16);
+
+		Assertions.assertThrows(InvalidSyntaxException.class, () -> cache.convert("let = 1"));
+		Assertions.assertThrows(InvalidSyntaxException.class, () -> cache.convert("let = 1"));
+		Assertions.assertEquals(0, cache.getMemorySize());
+		Assertions.assertEquals(2, cache.getMisses());
+	}
+
+}
@@ -0,0 +1,193 @@
+package me.saharnooby.luajssyntax;
+
+import me.saharnooby.luajssyntax.util.HashUtil;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * @author saharNooby
+ * @since 21:10 18.10.2026
+ */
+class ConversionOptionsTest {
+
+	private static final String SOURCE = "try {\n    throw 1\n} catch (e) {\n    consume(e)\n}\n";
+
+	@Test
+	void testDefault() {
+		Assertions.assertTrue(LuaJSToLua.convert(SOURCE).contains(HashUtil.md5(SOURCE).substring(0, 8)));
+		Assertions.assertEquals(LuaJSToLua.convert(SOURCE), LuaJSToLua.convert(SOURCE, ConversionOptions.DEFAULT));
+	}
+
+	@Test
+	void testFnv() {
+		ConversionOptions options = ConversionOptions.builder().hashAlgorithm(ConversionOptions.HashAlgorithm.FNV1A).build();
+
+		String fnv = HashUtil.fnv1a32(CharStreams.fromString(SOURCE));
+
+		String result = LuaJSToLua.convert(SOURCE, options);
+		Assertions.assertTrue(result.contains(fnv));
+		Assertions.assertEquals(LuaJSToLua.convert(SOURCE).replace(HashUtil.md5(SOURCE).substring(0, 8), fnv), result);
+	}
+
+	@Test
+	void testSourceId() {
+		ConversionOptions options = ConversionOptions.builder().sourceId("module_1").build();
+
+		String result = LuaJSToLua.convert(SOURCE, options);
+		Assertions.assertTrue(result.contains("module_1"));
+		Assertions.assertEquals(result, LuaJSToLua.convert(SOURCE + "\n", options).trim());
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> LuaJSToLua.convert(SOURCE, ConversionOptions.builder().sourceId("a-b").build()));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> LuaJSToLua.convert("let x = 1", ConversionOptions.builder().sourceId("").build()));
+	}
+
+	@Test
+	void testTarget() {
+		String source = "let x = 5\nx ^= 3\nconsume(~x ** 2, x & y << 2, 'a' .. (x >> 1), 1 << 32)";
+
+		Assertions.assertEquals("local x = 5; \nx = bit.bxor(x, 3); \nconsume(bit.bnot(x) ^ 2, bit.band(x, bit.lshift(y, 2)), 'a' .. tostring((bit.rshift(x, 1))), bit.lshift(1, 32));",
+				LuaJSToLua.convert(source, target(ConversionOptions.Target.LUA_51)));
+		Assertions.assertEquals("local x = 5; \nx = bit32.bxor(x, 3); \nconsume(bit32.bnot(x) ^ 2, bit32.band(x, bit32.lshift(y, 2)), 'a' .. tostring((bit32.rshift(x, 1))), bit32.lshift(1, 32));",
+				LuaJSToLua.convert(source, target(ConversionOptions.Target.LUA_52)));
+		Assertions.assertEquals("local x = 5; \nx = x ~ 3; \nconsume((~x) ^ 2, x & y << 2, 'a' .. tostring((x >> 1)), 1 << 32);",
+				LuaJSToLua.convert(source, target(ConversionOptions.Target.LUA_53)));
+
+		Assertions.assertEquals(LuaJSToLua.convert(source), LuaJSToLua.convert(source, target(ConversionOptions.Target.LUA_52)));
+		Assertions.assertEquals("x = x | (a & b);", LuaJSToLua.convert("x |= a & b", target(ConversionOptions.Target.LUA_53)));
+
+		// Folded bitwise operators follow semantics of the target
+		Assertions.assertEquals("consume(1);", LuaJSToLua.convert("consume(1 << 32)", target(ConversionOptions.Target.LUA_51).toBuilder().foldConstants(true).build()));
+		Assertions.assertEquals("consume(0);", LuaJSToLua.convert("consume(1 << 32)", target(ConversionOptions.Target.LUA_52).toBuilder().foldConstants(true).build()));
+		Assertions.assertEquals("consume(4294967296);", LuaJSToLua.convert("consume(1 << 32)", target(ConversionOptions.Target.LUA_53).toBuilder().foldConstants(true).build()));
+
+		String loop = "while (true) {\n    continue\n}";
+
+		Assertions.assertTrue(LuaJSToLua.convert(loop).contains("goto"));
+		Assertions.assertFalse(LuaJSToLua.convert(loop, target(ConversionOptions.Target.LUA_51)).contains("goto"));
+	}
+
+	@Test
+	void testLocalHelpers() {
+		ConversionOptions options = ConversionOptions.builder().sourceId("m").localHelpers(true).foldConstants(true).build();
+
+		Assertions.assertEquals("local bit32_band_m, tostring_m = bit32.band, tostring; local x = bit32_band_m(y, 1); \nconsume('a' .. tostring_m(x), \"ab\");",
+				LuaJSToLua.convert("let x = y & 1\nconsume('a' .. x, 'a' .. 'b')", options));
+
+		// Folded operators do not need helpers
+		Assertions.assertEquals("\n\nlocal x = 3;", LuaJSToLua.convert("\n\nlet x = 1 | 2", options));
+
+		// Line numbers are preserved
+		String converted = LuaJSToLua.convert("\n\nfor (v of list) {\n    throw v\n}", options);
+		Assertions.assertEquals("local error_m, ipairs_m = error, ipairs; \n\nfor _, v in ipairs_m(list) do \nerror_m(v); end;", converted);
+	}
+
+	@Test
+	void testNumericForOf() {
+		ConversionOptions options = ConversionOptions.builder().sourceId("m").numericForOf(true).build();
+
+		Assertions.assertEquals("do local list_m_1 = get(); for i_m_1 = 1, #list_m_1 do local v = list_m_1[i_m_1]; \nconsume(v); end end;",
+				LuaJSToLua.convert("for (v of get()) {\n    consume(v)\n}", options));
+		Assertions.assertEquals("do local list_m_1 = list; for i = 1, #list_m_1 do local v = list_m_1[i]; \nconsume(v, i); end end;",
+				LuaJSToLua.convert("for (v, i of list) {\n    consume(v, i)\n}", options));
+
+		// Nested loops use different names
+		Assertions.assertTrue(LuaJSToLua.convert("for (a of x) {\n    for (b of a) {\n        consume(b)\n    }\n}", options).contains("local list_m_2 = a;"));
+	}
+
+	@Test
+	void testStringBuffers() {
+		ConversionOptions options = ConversionOptions.builder().sourceId("m").stringBuffers(true).build();
+
+		Assertions.assertEquals("local s = ''; \ndo local buf_m_0, n_m_0 = {tostring(s)}, 1; for _, v in ipairs(list) do \nbuf_m_0[n_m_0 + 1] = tostring(v); n_m_0 = n_m_0 + 1; end; " +
+						"if n_m_0 > 1 then s = table.concat(buf_m_0) end end;",
+				LuaJSToLua.convert("let s = ''\nfor (v of list) {\n    s ..= v\n}", options));
+
+		// The string is read in the loop, is not a local, or may be read by a function during the loop
+		Assertions.assertFalse(LuaJSToLua.convert("let s = ''\nfor (v of list) {\n    s ..= v\n    consume(s)\n}", options).contains("buf_"));
+		Assertions.assertFalse(LuaJSToLua.convert("for (v of list) {\n    s ..= v\n}", options).contains("buf_"));
+		Assertions.assertFalse(LuaJSToLua.convert("let s = ''\nlet f = () => s\nfor (v of list) {\n    s ..= v\n}", options).contains("buf_"));
+
+		// The loop may be left without storing the result
+		Assertions.assertFalse(LuaJSToLua.convert("function f() {\n    let s = ''\n    for (v of list) {\n        s ..= v\n        return\n    }\n}", options).contains("buf_"));
+	}
+
+	@Test
+	void testDeadCode() {
+		String source = "function f(x) {\n    let unused = 1\n    if (false) {\n        consume(x)\n    }\n    return x\n    consume(x)\n}";
+
+		ConversionOptions options = ConversionOptions.builder().eliminateDeadCode(true).build();
+
+		Assertions.assertEquals("function f(x) \n\n\n\n\nreturn x; end;", LuaJSToLua.convert(source, options));
+		Assertions.assertEquals("[line 2:4 unused local, line 3:4 constant condition, line 7:4 unreachable code]",
+				LuaJSToLua.findDeadCode(source, options).toString());
+
+		// Disabled by default
+		Assertions.assertTrue(LuaJSToLua.convert(source).contains("local unused = 1"));
+		Assertions.assertEquals(LuaJSToLua.findDeadCode(source, options), LuaJSToLua.findDeadCode(source, ConversionOptions.DEFAULT));
+
+		// Values with side effects are evaluated, and locals redeclared in nested blocks are kept
+		Assertions.assertTrue(LuaJSToLua.convert("function f() {\n    let a = g()\n}", options).contains("local a = g()"));
+
+		// The condition of do-while sees locals of the body
+		Assertions.assertEquals("[line 5:8 unused local]",
+				LuaJSToLua.findDeadCode("function f() {\n    do {\n        let done = true\n        {\n        let other = 1\n        }\n    } while (!done && !other)\n}", options).toString());
+
+		// Reading a global may raise an error when the environment is strict, reading a local or a parameter may not
+		Assertions.assertTrue(LuaJSToLua.convert("function f() {\n    let a = g\n}", options).contains("local a = g"));
+		Assertions.assertTrue(LuaJSToLua.convert("function f() {\n    let a = x\n    let x = 1\n    consume(x)\n}", options).contains("local a = x"));
+		Assertions.assertFalse(LuaJSToLua.convert("function f(x) {\n    let a = x\n}", options).contains("local a"));
+		Assertions.assertFalse(LuaJSToLua.convert("function f() {\n    let x = 1\n    for (v of x) {\n        let a = x, v\n    }\n}", options).contains("local a"));
+		Assertions.assertEquals("[line 4:8 unused local]",
+				LuaJSToLua.findDeadCode("function f() {\n    let a = 1\n    {\n        let a = 2\n    }\n}", options).toString());
+	}
+
+	@Test
+	void testMinify() throws IOException {
+		String source = "let total = 0\n\nfunction add(value, scale) {\n    let scaled = value * scale\n    total += scaled\n    return scaled .. \" added\"\n}\n";
+
+		StringBuilder out = new StringBuilder();
+		StringBuilder mapping = new StringBuilder();
+
+		LuaJSToLua.convert(CharStreams.fromString(source), out, ConversionOptions.builder().minify(true).build(), mapping);
+
+		Assertions.assertEquals("local a=0\nfunction add(b,c)\nlocal d=b*c\na=a+d\nreturn tostring(d)..\" added\"end", out.toString());
+		Assertions.assertEquals(out.toString(), LuaJSToLua.convert(source, ConversionOptions.builder().minify(true).build()));
+
+		MinifyMapping read = MinifyMapping.read(new StringReader(mapping.toString()));
+
+		Assertions.assertEquals(3, read.getSourceLine(2));
+		Assertions.assertEquals(-1, read.getSourceLine(6));
+		Assertions.assertEquals("scaled", read.getSourceName("d", 5));
+		Assertions.assertNull(read.getSourceName("d", 1));
+		Assertions.assertEquals("main:4: attempt to perform arithmetic on local 'value' (a nil value)\nmain:3: in function 'add'",
+				read.decode("main:3: attempt to perform arithmetic on local 'b' (a nil value)\nmain:2: in function 'add'"));
+
+		StringBuilder written = new StringBuilder();
+		read.write(written);
+		Assertions.assertEquals(mapping.toString(), written.toString());
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> LuaJSToLua.convert(CharStreams.fromString(source), new StringBuilder(), ConversionOptions.DEFAULT, new StringBuilder()));
+
+		// The condition of do-while sees locals of the body, unless the body is wrapped to support continue in Lua 5.1
+		ConversionOptions minify = ConversionOptions.builder().minify(true).build();
+		ConversionOptions minify51 = ConversionOptions.builder().minify(true).target(ConversionOptions.Target.LUA_51).build();
+
+		Assertions.assertTrue(LuaJSToLua.convert("do {\n    let done = true\n} while (!done)", minify).endsWith("(not a)))"));
+		Assertions.assertTrue(LuaJSToLua.convert("do {\n    let done = true\n    continue\n} while (!done)", minify51).endsWith("(not done)))"));
+	}
+
+	@Test
+	void testFingerprint() {
+		Assertions.assertEquals(ConversionOptions.DEFAULT.fingerprint(), ConversionOptions.builder().build().fingerprint());
+		Assertions.assertNotEquals(ConversionOptions.DEFAULT.fingerprint(), ConversionOptions.builder().sourceId("a").build().fingerprint());
+	}
+
+	private static ConversionOptions target(ConversionOptions.Target target) {
+		return ConversionOptions.builder().target(target).build();
+	}
+
+}
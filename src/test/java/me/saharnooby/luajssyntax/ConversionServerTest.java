@@ -0,0 +1,116 @@
+package me.saharnooby.luajssyntax;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * @author saharNooby
+ * @since 23:00 18.10.2026
+ */
+class ConversionServerTest {
+
+	@Test
+	void testServer() throws Exception {
+		try (ConversionServer server = new ConversionServer(0, 4)) {
+			Thread thread = new Thread(() -> {
+				try {
+					server.serve();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+
+			thread.start();
+
+			try (Socket socket = connect(server)) {
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+				// Several requests over one connection
+				for (int i = 0; i < 3; i++) {
+					writeString(out, "let x = 'строка " + i + "'");
+
+					Assertions.assertEquals(ConversionServer.STATUS_OK, in.readByte());
+					Assertions.assertEquals(LuaJSToLua.convert("let x = 'строка " + i + "'"), readString(in));
+				}
+
+				writeString(out, "let x = 1\nlet = 2");
+
+				Assertions.assertEquals(ConversionServer.STATUS_INVALID_SYNTAX, in.readByte());
+				Assertions.assertEquals(2, in.readInt());
+				Assertions.assertEquals(4, in.readInt());
+				Assertions.assertFalse(readString(in).isEmpty());
+
+				out.writeInt(-1);
+
+				Assertions.assertEquals(ConversionServer.STATUS_ERROR, in.readByte());
+				Assertions.assertFalse(readString(in).isEmpty());
+				Assertions.assertEquals(-1, in.read());
+			}
+
+			// Concurrent connections
+			ExecutorService executor = Executors.newFixedThreadPool(8);
+
+			try {
+				List<Future<String>> futures = new ArrayList<>();
+
+				for (int i = 0; i < 32; i++) {
+					String source = "let x = " + i;
+
+					futures.add(executor.submit(() -> {
+						try (Socket socket = connect(server)) {
+							DataInputStream in = new DataInputStream(socket.getInputStream());
+
+							writeString(new DataOutputStream(socket.getOutputStream()), source);
+
+							Assertions.assertEquals(ConversionServer.STATUS_OK, in.readByte());
+
+							return readString(in);
+						}
+					}));
+				}
+
+				for (int i = 0; i < futures.size(); i++) {
+					Assertions.assertEquals(LuaJSToLua.convert("let x = " + i), futures.get(i).get(10, TimeUnit.SECONDS));
+				}
+			} finally {
+				executor.shutdown();
+			}
+
+			server.close();
+
+			thread.join(10000);
+
+			Assertions.assertFalse(thread.isAlive());
+		}
+	}
+
+	private static Socket connect(ConversionServer server) throws IOException {
+		return new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+
+		out.writeInt(bytes.length);
+		out.write(bytes);
+		out.flush();
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+
+		in.readFully(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -41,6 +41,13 @@ class ConverterTest {
 		test();
 	}
 
+	@Test
+	void testCompoundComplex() {
+		test();
+		test("CompoundComplex", ConversionOptions.builder().target(ConversionOptions.Target.LUA_51).build());
+		test("CompoundComplex", ConversionOptions.builder().foldConstants(true).build());
+	}
+
 	@Test
 	void testBreak() {
 		test();
@@ -76,6 +83,11 @@ class ConverterTest {
 		test();
 	}
 
+	@Test
+	void testForOptimizedLimits() {
+		test();
+	}
+
 	@Test
 	void testForIn() {
 		test();
@@ -86,6 +98,15 @@ class ConverterTest {
 		test();
 	}
 
+	@Test
+	void testForOfNumeric() {
+		ConversionOptions options = ConversionOptions.builder().numericForOf(true).build();
+
+		test("ForOf", options);
+		test("Continue", options);
+		test("Continue", options.toBuilder().target(ConversionOptions.Target.LUA_51).build());
+	}
+
 	@Test
 	void testIncrement() {
 		test();
@@ -181,6 +202,11 @@ class ConverterTest {
 		test();
 	}
 
+	@Test
+	void testConstantFolding() {
+		test("ConstantFolding", ConversionOptions.builder().foldConstants(true).build());
+	}
+
 	@Test
 	void testChainCalls() {
 		test();
@@ -201,11 +227,83 @@ class ConverterTest {
 		test();
 	}
 
+	@Test
+	void testContinueBreak() {
+		test();
+	}
+
+	@Test
+	void testContinueLua51() {
+		test("Continue", ConversionOptions.builder().target(ConversionOptions.Target.LUA_51).build());
+	}
+
+	@Test
+	void testContinueBreakLua51() {
+		test("ContinueBreak", ConversionOptions.builder().target(ConversionOptions.Target.LUA_51).build());
+	}
+
+	@Test
+	void testLocalHelpers() {
+		ConversionOptions options = ConversionOptions.builder().localHelpers(true).build();
+
+		for (String testName : new String[] {"Bitwise", "Compound", "Concat", "ForOf", "PrioritiesBitwise", "TryCatch", "Throw", "Unary"}) {
+			test(testName, options);
+		}
+	}
+
+	@Test
+	void testStringBuffers() {
+		ConversionOptions options = ConversionOptions.builder().stringBuffers(true).build();
+
+		test("StringBuffers", options);
+		test("StringBuffers", options.toBuilder().localHelpers(true).build());
+		test("StringBuffers", ConversionOptions.DEFAULT);
+		test("Compound", options);
+	}
+
+	@Test
+	void testDeadCode() {
+		ConversionOptions options = ConversionOptions.builder().eliminateDeadCode(true).build();
+
+		test("DeadCode", options);
+		test("DeadCode", options.toBuilder().target(ConversionOptions.Target.LUA_51).build());
+		test("DeadCode", options.toBuilder().foldConstants(true).localHelpers(true).build());
+	}
+
+	@Test
+	void testMinify() {
+		ConversionOptions options = ConversionOptions.builder().minify(true).build();
+
+		// Tests checking line numbers in error messages are not included, since lines are not preserved
+		String[] names = {"Locals", "Globals", "Strings", "Literals", "Numbers", "Concat", "Unary", "Power", "Priorities", "PrioritiesUnary",
+				"Parenthesis", "Ternary", "Tables", "Lists", "OOP", "FunctionLiteral", "ArrowFunctionLiteral", "If", "For", "ForIn", "ForOf",
+				"ForOptimizedLimits", "DoWhile", "Break", "Continue", "ContinueBreak", "Label", "Increment", "Compound", "CompoundComplex",
+				"TryCatch"};
+
+		for (String name : names) {
+			test(name, options);
+		}
+
+		test("Continue", options.toBuilder().target(ConversionOptions.Target.LUA_51).build());
+		test("StringBuffers", options.toBuilder().stringBuffers(true).localHelpers(true).build());
+		test("ForOf", options.toBuilder().numericForOf(true).build());
+		test("DeadCode", options.toBuilder().eliminateDeadCode(true).build());
+	}
+
 	@Test
 	void testTryCatch() {
 		test();
 	}
 
+	@Test
+	void testTryCatchHoisted() {
+		ConversionOptions options = ConversionOptions.builder().hoistTryCatch(true).build();
+
+		test("TryCatch", options);
+		test("TryCatchHoisted", options);
+		test("TryCatchHoisted", ConversionOptions.DEFAULT);
+	}
+
 	@Test
 	void testThrow() {
 		test();
@@ -218,8 +316,10 @@ class ConverterTest {
 
 	// The behavior of this method is caller dependent.
 	private void test() {
-		String testName = new Exception().getStackTrace()[1].getMethodName().substring(4);
+		test(new Exception().getStackTrace()[1].getMethodName().substring(4), ConversionOptions.DEFAULT);
+	}
 
+	private void test(@NonNull String testName, @NonNull ConversionOptions options) {
 		StringBuilder jsCode = new StringBuilder();
 		StringBuilder luaCode = new StringBuilder();
 
@@ -239,7 +339,7 @@ class ConverterTest {
 			throw new RuntimeException(e);
 		}
 
-		String convertedCode = LuaJSToLua.convert(jsCode.toString());
+		String convertedCode = LuaJSToLua.convert(jsCode.toString(), options);
 
 		List<LuaValue> real;
 
@@ -20,4 +20,28 @@ class ErrorTest {
 		Assertions.assertThrows(InvalidSyntaxException.class, () -> LuaJSToLua.convert("let x = 1 # 2"));
 	}
 
+	@Test
+	void testSyntaxErrorMessages() {
+		assertMessage("line 1:10 extraneous input '#' expecting {<EOF>, '{', ';', 'let', 'break', 'continue', 'goto', 'return', 'if', '(', 'while', 'do', 'for', 'function', 'try', 'throw', NAME}", "let x = 1 # 2");
+		assertMessage("line 1:8 mismatched input '<EOF>' expecting {'{', '}', ';', 'let', 'break', 'continue', 'goto', 'return', 'if', '(', 'while', 'do', 'for', 'function', 'try', 'throw', NAME}", "if (x) {");
+		assertMessage("line 1:4 missing NAME at '='", "let = 5");
+		assertMessage("line 1:9 no viable alternative at input '(1+'", "x = (1 + ");
+		assertMessage("line 1:22 missing ';' at ')'", "for (let i = 0; i < 10) {}");
+	}
+
+	@Test
+	void testJumpOutOfTry() {
+		assertMessage("line 1:18 break can not leave try block", "while (x) { try { break } catch (e) {} }");
+		assertMessage("line 1:18 continue can not leave try block", "while (x) { try { continue } catch (e) {} }");
+
+		// Jumps inside the body and in the catch block are allowed
+		LuaJSToLua.convert("while (x) { try { while (y) { break } } catch (e) { continue } }");
+	}
+
+	private static void assertMessage(String expected, String source) {
+		InvalidSyntaxException e = Assertions.assertThrows(InvalidSyntaxException.class, () -> LuaJSToLua.convert(source));
+
+		Assertions.assertEquals(expected, e.getMessage());
+	}
+
 }
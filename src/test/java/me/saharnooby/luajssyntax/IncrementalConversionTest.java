@@ -0,0 +1,138 @@
+package me.saharnooby.luajssyntax;
+
+import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * @author saharNooby
+ * @since 17:40 18.10.2026
+ */
+class IncrementalConversionTest {
+
+	private static final String[] TEST_CASES = {"Locals", "If", "For", "ForOptimized", "Continue", "TryCatch", "Strings", "OOP", "ChainCalls", "Increment"};
+
+	private static final String[] FRAGMENTS = {
+			"x", "1", " ", "\n", "\n\n", "let y = 2\n", "consume(1)", "(", ")", "{", "}", ";", ".", "/*", "*/", "//", "\"",
+			"try { a() } catch (e) { b() }\n", "while (true) { continue }\n", "for (let i = 0; i < 3; i++) { continue }\n"
+	};
+
+	@Test
+	void testEdits() {
+		String source = "let a = 1\n\nconsume(a)\n\nlet b = a + 2; consume(b)\n";
+
+		IncrementalConversion conversion = IncrementalConversion.convert(source);
+		assertSameAsFull(conversion);
+
+		// Change a single statement
+		conversion = conversion.update(source.replace("a + 2", "a * 20"));
+		assertSameAsFull(conversion);
+		Assertions.assertTrue(conversion.getReusedStatementCount() >= 1);
+
+		// Insert lines, shifting following statements
+		conversion = conversion.update(conversion.getSource().indexOf("consume(a)"), conversion.getSource().indexOf("consume(a)"), "let c = {\n  x: 1\n}\n\n");
+		assertSameAsFull(conversion);
+
+		// Put statements on the same line
+		conversion = conversion.update(conversion.getSource().replace("consume(a)\n\n", "consume(a) "));
+		assertSameAsFull(conversion);
+
+		// Merge statement with the following one
+		conversion = conversion.update(conversion.getSource().replace("consume(a) let b", "consume(a).b"));
+		assertSameAsFull(conversion);
+
+		// Comment swallows all statements
+		conversion = conversion.update("/*" + conversion.getSource() + "*/");
+		assertSameAsFull(conversion);
+		Assertions.assertEquals("", conversion.getOutput().trim());
+	}
+
+	@Test
+	void testTryCatchIndices() {
+		String source = "try { a() } catch (e) { b() }\n\nconsume(1)\n\ntry { c() } catch (e) { d() }\n";
+
+		IncrementalConversion conversion = IncrementalConversion.convert(source);
+
+		conversion = conversion.update(source.replace("consume(1)", "try { x() } catch (e) { y() }"));
+		assertSameAsFull(conversion);
+
+		conversion = conversion.update(source);
+		assertSameAsFull(conversion);
+	}
+
+	@Test
+	void testSyntaxError() {
+		String source = "let a = 1\nlet b = 2\nlet c = 3\n";
+
+		IncrementalConversion conversion = IncrementalConversion.convert(source);
+
+		String invalid = source.replace("let b = 2", "let b = = 2");
+
+		InvalidSyntaxException expected = Assertions.assertThrows(InvalidSyntaxException.class, () -> LuaJSToLua.convert(invalid));
+		InvalidSyntaxException actual = Assertions.assertThrows(InvalidSyntaxException.class, () -> conversion.update(invalid));
+
+		Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+	}
+
+	@Test
+	void testRandomEdits() {
+		StringBuilder builder = new StringBuilder();
+
+		for (String testCase : TEST_CASES) {
+			builder.append(loadTestCase(testCase)).append('\n');
+		}
+
+		Random random = new Random(42);
+
+		IncrementalConversion conversion = IncrementalConversion.convert(builder.toString());
+
+		for (int i = 0; i < 300; i++) {
+			IncrementalConversion previous = conversion;
+			String source = previous.getSource();
+
+			int start = random.nextInt(source.length() + 1);
+			int end = Math.min(source.length(), start + (random.nextBoolean() ? 0 : random.nextInt(20)));
+			String replacement = random.nextInt(4) == 0 ? "" : FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+
+			String newSource = source.substring(0, start) + replacement + source.substring(end);
+
+			String expected;
+
+			try {
+				expected = LuaJSToLua.convert(newSource);
+			} catch (InvalidSyntaxException e) {
+				InvalidSyntaxException actual = Assertions.assertThrows(InvalidSyntaxException.class, () -> previous.update(newSource));
+				Assertions.assertEquals(e.getMessage(), actual.getMessage());
+				continue;
+			}
+
+			IncrementalConversion updated = random.nextBoolean() ? previous.update(newSource) : previous.update(start, end, replacement);
+
+			Assertions.assertEquals(expected, updated.getOutput(), "edit #" + i);
+
+			conversion = updated;
+		}
+	}
+
+	private static void assertSameAsFull(IncrementalConversion conversion) {
+		Assertions.assertEquals(LuaJSToLua.convert(conversion.getSource()), conversion.getOutput());
+	}
+
+	private static String loadTestCase(String name) {
+		try (InputStream in = IncrementalConversionTest.class.getResourceAsStream(name + ".txt")) {
+			String text = new Scanner(in, StandardCharsets.UTF_8.name()).useDelimiter("\\A").next();
+
+			return text.substring(0, text.indexOf("\n===") + 1);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
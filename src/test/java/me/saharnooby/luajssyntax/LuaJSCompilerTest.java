@@ -0,0 +1,67 @@
+package me.saharnooby.luajssyntax;
+
+import me.saharnooby.luajssyntax.exception.InvalidSyntaxException;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.luaj.vm2.*;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * @author saharNooby
+ * @since 23:55 18.10.2026
+ */
+class LuaJSCompilerTest {
+
+	private static final String SOURCE = "let t = []\n" +
+			"for (let i = 0; i < 10; i++) {\n" +
+			"    t[#t + 1] = i * 2\n" +
+			"}\n" +
+			"let s = 'строка'\n" +
+			"try {\n" +
+			"    throw s\n" +
+			"} catch (e) {\n" +
+			"    s = e .. #t\n" +
+			"}\n" +
+			"return t[5] .. ':' .. s\n";
+
+	@Test
+	void testPrototype() {
+		Globals globals = JsePlatform.standardGlobals();
+
+		LuaValue expected = globals.load(LuaJSToLua.convert(SOURCE), "test").call();
+		LuaValue actual = new LuaClosure(LuaJSCompiler.compile(SOURCE, "test"), globals).call();
+
+		Assertions.assertEquals(expected, actual);
+		Assertions.assertEquals("8:test:7 строка10", actual.tojstring());
+	}
+
+	@Test
+	void testBinaryChunk() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LuaJSCompiler.compile(CharStreams.fromString(SOURCE), "test", out, false);
+
+		Prototype prototype = LoadState.undump(new ByteArrayInputStream(out.toByteArray()), "test");
+		Assertions.assertNotNull(prototype);
+
+		Assertions.assertEquals("8:test:7 строка10", new LuaClosure(prototype, JsePlatform.standardGlobals()).call().tojstring());
+	}
+
+	@Test
+	void testLines() {
+		Prototype prototype = LuaJSCompiler.compile("let x = 1\n\n\nlet y = x.field.error\n", "test.ljs");
+
+		LuaError error = Assertions.assertThrows(LuaError.class, () -> new LuaClosure(prototype, JsePlatform.standardGlobals()).call());
+		Assertions.assertTrue(error.getMessage().startsWith("test.ljs:4"), error.getMessage());
+	}
+
+	@Test
+	void testSyntaxError() {
+		Assertions.assertThrows(InvalidSyntaxException.class, () -> LuaJSCompiler.compile("let = 1", "test"));
+	}
+
+}
@@ -0,0 +1,110 @@
+package me.saharnooby.luajssyntax;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * @author saharNooby
+ * @since 23:59 18.10.2026
+ */
+class LuaJSLoaderTest {
+
+	@Test
+	void testRequire() {
+		LuaJSLoader loader = new LuaJSLoader(16);
+
+		for (int i = 0; i < 3; i++) {
+			Globals globals = JsePlatform.standardGlobals();
+			loader.install(globals);
+
+			Assertions.assertEquals(1230, globals.load("return require('test_ljs_module').calculate(123)").call().toint());
+
+			// Lua modules are still loaded
+			Assertions.assertTrue(globals.load("return require('test_module')").call().istable());
+		}
+
+		Assertions.assertEquals(1, loader.getMisses());
+		Assertions.assertEquals(2, loader.getHits());
+	}
+
+	@Test
+	void testFile() throws IOException {
+		Path file = Files.createTempFile("luajs", LuaJSLoader.EXTENSION);
+
+		Files.write(file, "return 1".getBytes(StandardCharsets.UTF_8));
+
+		LuaJSLoader loader = new LuaJSLoader(16);
+
+		Globals globals = JsePlatform.standardGlobals();
+		loader.install(globals);
+
+		Assertions.assertEquals(1, globals.loadfile(file.toString()).call().toint());
+		Assertions.assertEquals(1, globals.loadfile(file.toString()).call().toint());
+		Assertions.assertEquals(1, loader.getHits());
+
+		Files.write(file, "return 2".getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+
+		Assertions.assertEquals(2, globals.loadfile(file.toString()).call().toint());
+		Assertions.assertEquals(2, loader.getMisses());
+
+		Files.delete(file);
+	}
+
+	@Test
+	void testEviction() throws IOException {
+		Path first = Files.createTempFile("luajs", LuaJSLoader.EXTENSION);
+		Path second = Files.createTempFile("luajs", LuaJSLoader.EXTENSION);
+
+		Files.write(first, "return 1".getBytes(StandardCharsets.UTF_8));
+		Files.write(second, "return 2".getBytes(StandardCharsets.UTF_8));
+
+		LuaJSLoader loader = new LuaJSLoader(1);
+
+		Globals globals = JsePlatform.standardGlobals();
+		loader.install(globals);
+
+		// Only the last loaded file is kept
+		Assertions.assertEquals(1, globals.loadfile(first.toString()).call().toint());
+		Assertions.assertEquals(2, globals.loadfile(second.toString()).call().toint());
+		Assertions.assertEquals(1, globals.loadfile(first.toString()).call().toint());
+		Assertions.assertEquals(1, globals.loadfile(first.toString()).call().toint());
+
+		Assertions.assertEquals(3, loader.getMisses());
+		Assertions.assertEquals(1, loader.getHits());
+
+		Files.delete(first);
+		Files.delete(second);
+	}
+
+	@Test
+	void testLoad() {
+		LuaJSLoader loader = new LuaJSLoader(16);
+
+		Globals globals = JsePlatform.standardGlobals();
+		loader.install(globals);
+
+		Assertions.assertEquals(3, globals.load("let x = 1\nx += 2\nreturn x", "script" + LuaJSLoader.EXTENSION).call().toint());
+		Assertions.assertEquals(3, globals.load("local x = 1; x = x + 2; return x", "script.lua").call().toint());
+
+		LuaError error = Assertions.assertThrows(LuaError.class, () -> globals.load("let = 1", "invalid" + LuaJSLoader.EXTENSION));
+		Assertions.assertTrue(error.getMessage().contains("invalid" + LuaJSLoader.EXTENSION), error.getMessage());
+
+		// Lua load function accepts LuaJS code too, and reports syntax errors like errors in Lua code
+		Assertions.assertEquals(5, globals.load("return load('let x = 5; return x', 'chunk" + LuaJSLoader.EXTENSION + "')()").call().toint());
+
+		LuaValue result = globals.load("local f, e = load('let = 1', 'chunk" + LuaJSLoader.EXTENSION + "'); return e").call();
+		Assertions.assertTrue(result.isstring());
+	}
+
+}
@@ -53,4 +53,105 @@ class OptimizationTest {
 		Assertions.assertFalse(converted.contains("while"));
 	}
 
+	@Test
+	void testStrictLoop() {
+		Assertions.assertEquals("for i = 0, 9, 1 do \nconsume(i); end;", LuaJSToLua.convert("for (let i = 0; i < 10; i++) {\n    consume(i)\n}"));
+		Assertions.assertEquals("for i = 10, 1, -1 do \nconsume(i); end;", LuaJSToLua.convert("for (let i = 10; i > 0; i--) {\n    consume(i)\n}"));
+
+		// Float loops can not be converted, since the limit itself may be reached
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < 1; i += 0.1) {\n    consume(i)\n}").contains("while"));
+	}
+
+	@Test
+	void testLoopLimits() {
+		String half = "function f(a) {\n    let n = #a / 2\n    for (let i = 0; i < n; i++) {\n        consume(i)\n    }\n}";
+
+		Assertions.assertTrue(LuaJSToLua.convert(half).contains("for i = 0, math.ceil(n) - 1, 1 do "));
+		Assertions.assertTrue(LuaJSToLua.convert(half, ConversionOptions.builder().sourceId("m").localHelpers(true).build()).contains("for i = 0, math_ceil_m(n) - 1, 1 do "));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < #arr; i++) {\n    s += arr[i]\n}").startsWith("for i = 0, #arr - 1, 1 do "));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 1; i <= #arr; i++) {\n    s += arr[i]\n}").startsWith("for i = 1, #arr, 1 do "));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < #a + #b; i++) {\n    s += i\n}").startsWith("for i = 0, (#a + #b) - 1, 1 do "));
+
+		// The body may change the limit or the loop variable
+		Assertions.assertTrue(LuaJSToLua.convert("function f() {\n    let n = 3\n    for (let i = 0; i < n; i++) {\n        n = 1\n    }\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < #arr; i++) {\n    table.insert(arr, i)\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < #arr; i++) {\n    arr[i + 1] = i\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("let q = arr\nfor (let i = 0; i < #arr; i++) {\n    q[#q + 1] = i\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < #arr; i++) {\n    t.x += i\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < #arr; i++) {\n    consume(i)\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < 10; i++) {\n    f(() => { i++ })\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < f(); i++) {\n    consume(i)\n}").contains("while"));
+
+		// Called functions may change locals used by functions, globals and fields
+		Assertions.assertTrue(LuaJSToLua.convert("function f() {\n    let n = 3\n    let inc = () => { n++ }\n    for (let i = 0; i < n; i++) {\n        inc()\n    }\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i < n; i++) {\n    consume(i)\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i <= t.count; i++) {\n    s += i\n}").contains("while"));
+
+		// Strings are converted to numbers by numeric for, but not by comparisons
+		Assertions.assertTrue(LuaJSToLua.convert("function f() {\n    let n = '3'\n    for (let i = 0; i < n; i++) {\n        s += i\n    }\n}").contains("while"));
+		Assertions.assertTrue(LuaJSToLua.convert("function f(a) {\n    let n = a\n    for (let i = 0; i <= n; i++) {\n        s += i\n    }\n}").contains("while"));
+
+		// Step going away from the limit
+		Assertions.assertTrue(LuaJSToLua.convert("for (let i = 0; i <= 10; i--) {\n    consume(i)\n}").contains("while"));
+	}
+
+	@Test
+	void testUpdatedVars() {
+		ConversionOptions options = ConversionOptions.builder().sourceId("m").build();
+
+		Assertions.assertEquals("do local obj_m, key_m = a.b[c()], f(); obj_m[key_m] = obj_m[key_m] + 1 end;", LuaJSToLua.convert("a.b[c()][f()]++", options));
+		Assertions.assertEquals("do local obj_m = a.b; obj_m.c = obj_m.c - 1 end;", LuaJSToLua.convert("a.b.c--", options));
+		Assertions.assertEquals("do local key_m = i + 1; a[key_m] = a[key_m] * (x + 1) end;", LuaJSToLua.convert("a[i + 1] *= x + 1", options));
+
+		// Names and literals are evaluated twice
+		Assertions.assertEquals("a.b = a.b + 1;", LuaJSToLua.convert("a.b++", options));
+		Assertions.assertEquals("a[i] = a[i] - 1;", LuaJSToLua.convert("a[i]--", options));
+		Assertions.assertEquals("x = x * (a + b);", LuaJSToLua.convert("x *= a + b", options));
+	}
+
+	@Test
+	void testConstantFolding() {
+		ConversionOptions options = ConversionOptions.builder().foldConstants(true).build();
+
+		Assertions.assertEquals("local x = 16;", LuaJSToLua.convert("let x = 1 << 4", options));
+		Assertions.assertEquals("local x = \"ab\";", LuaJSToLua.convert("let x = 'a' .. 'b'", options));
+		Assertions.assertEquals("local x = (-4);", LuaJSToLua.convert("let x = -(2 + 2)", options));
+		Assertions.assertEquals("local x = -4;", LuaJSToLua.convert("let x = -4", options));
+		// Infinity has no literal, so division by zero is kept
+		Assertions.assertEquals("local x = 1 / 0;", LuaJSToLua.convert("let x = 1 / 0", options));
+		// Integer negative zero is a float -0 in Lua 5.2 and an integer 0 in Lua 5.3, so it is kept; float negative zero is folded
+		Assertions.assertEquals("local x = 0 * -1;", LuaJSToLua.convert("let x = 0 * -1", options));
+		Assertions.assertEquals("local x = -0;", LuaJSToLua.convert("let x = -0", options));
+		Assertions.assertEquals("local x = 1 / -0;", LuaJSToLua.convert("let x = 1 / -(0 * 1)", options));
+		Assertions.assertEquals("local x = (-0.0);", LuaJSToLua.convert("let x = 0 * -1.0", options));
+	}
+
+	@Test
+	void testConstantFoldingDisabled() {
+		// Disabled by default
+		Assertions.assertTrue(LuaJSToLua.convert("let x = 1 << 4").contains("bit32.lshift"));
+	}
+
+	@Test
+	void testTryCatchHoisting() {
+		ConversionOptions options = ConversionOptions.builder().sourceId("m").hoistTryCatch(true).build();
+
+		String reads = "function f(a) {\n    try {\n        consume(a.b)\n    } catch (e) {}\n}";
+
+		Assertions.assertEquals("local try_m = {}; function f(a) \ndo local f_m_0 = try_m[0]; if not f_m_0 then f_m_0 = function(a) \nconsume(a.b); end; try_m[0] = f_m_0 end; " +
+				"local res_m_0, e_m_0 = pcall(f_m_0, a); if not res_m_0 then local e = e_m_0;  end end; end;", LuaJSToLua.convert(reads, options));
+
+		// Assigned locals, locals captured by nested functions and statements executed once are not hoisted
+		Assertions.assertFalse(LuaJSToLua.convert("function f(a) {\n    try {\n        a = 1\n    } catch (e) {}\n}", options).contains("try_m"));
+		Assertions.assertFalse(LuaJSToLua.convert("function f(a) {\n    try {\n        g(() => a)\n    } catch (e) {}\n}", options).contains("try_m"));
+		Assertions.assertFalse(LuaJSToLua.convert("try {\n    consume(a)\n} catch (e) {}", options).contains("try_m"));
+
+		// Locals assigned by any function may change while the body runs, even if the function is declared outside of the body
+		Assertions.assertFalse(LuaJSToLua.convert("function f() {\n    let c = 0\n    let inc = () => { c++ }\n    try {\n        inc()\n        consume(c)\n    } catch (e) {}\n}", options).contains("try_m"));
+		Assertions.assertTrue(LuaJSToLua.convert("function f() {\n    let c = 0\n    let get = () => c\n    try {\n        consume(get(), c)\n    } catch (e) {}\n}", options).contains("try_m"));
+
+		// Globals are accessed directly
+		Assertions.assertTrue(LuaJSToLua.convert("function f() {\n    try {\n        a = b\n    } catch (e) {}\n}", options).contains("f_m_0 = function() "));
+	}
+
 }
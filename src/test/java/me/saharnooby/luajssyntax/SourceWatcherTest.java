@@ -0,0 +1,102 @@
+package me.saharnooby.luajssyntax;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @author saharNooby
+ * @since 22:05 18.10.2026
+ */
+class SourceWatcherTest {
+
+	@Test
+	void testWatch() throws Exception {
+		Path src = Files.createTempDirectory("luajs-src");
+		Path out = Files.createTempDirectory("luajs-out");
+
+		write(src.resolve("a.ljs"), "let a = 1");
+		write(src.resolve("b.ljs"), "let b = 2");
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		BlockingQueue<Map<Path, BatchResult>> queue = new LinkedBlockingQueue<>();
+
+		try (SourceWatcher watcher = new SourceWatcher(Collections.singletonList(src.toString()), out, executor, null, 50)) {
+			Assertions.assertEquals(2, watcher.convertAll().size());
+			Assertions.assertEquals("local a = 1;", read(out.resolve("a.lua")));
+
+			Thread thread = new Thread(() -> {
+				try {
+					watcher.watch(queue::add);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+
+			thread.start();
+
+			// Only the modified file is converted
+			write(src.resolve("a.ljs"), "let a = 3");
+
+			Map<Path, BatchResult> results = queue.poll(10, TimeUnit.SECONDS);
+			Assertions.assertNotNull(results);
+			Assertions.assertEquals(Collections.singleton(src.resolve("a.ljs").toAbsolutePath().normalize()), results.keySet());
+			Assertions.assertEquals("local a = 3;", read(out.resolve("a.lua")));
+
+			// Files in new directories are converted
+			Files.createDirectories(src.resolve("nested"));
+			write(src.resolve("nested/c.ljs"), "let c = 4");
+
+			Assertions.assertTrue(waitFor(() -> Files.exists(out.resolve("nested/c.lua"))));
+			Assertions.assertEquals("local c = 4;", read(out.resolve("nested/c.lua")));
+
+			// Results of deleted files are deleted
+			Files.delete(src.resolve("b.ljs"));
+
+			Assertions.assertTrue(waitFor(() -> !Files.exists(out.resolve("b.lua"))));
+
+			watcher.close();
+
+			thread.join(10000);
+
+			Assertions.assertFalse(thread.isAlive());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+		for (int i = 0; i < 200; i++) {
+			if (condition.getAsBoolean()) {
+				return true;
+			}
+
+			Thread.sleep(50);
+		}
+
+		return false;
+	}
+
+	private static void write(Path path, String s) throws IOException {
+		Files.write(path, s.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String read(Path path) throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+
+}
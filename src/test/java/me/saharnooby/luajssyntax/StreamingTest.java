@@ -0,0 +1,80 @@
+package me.saharnooby.luajssyntax;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * @author saharNooby
+ * @since 19:20 18.10.2026
+ */
+class StreamingTest {
+
+	private static final String SOURCE = "let s = 'строка'\n\ntry {\n    throw s .. 1\n} catch (e) {\n    consume(e)\n}\n";
+
+	@Test
+	void testReader() throws IOException {
+		StringWriter out = new StringWriter();
+		LuaJSToLua.convert(new StringReader(SOURCE), out);
+		Assertions.assertEquals(LuaJSToLua.convert(SOURCE), out.toString());
+	}
+
+	@Test
+	void testPath() throws IOException {
+		Path file = Files.createTempFile("luajs", ".ljs");
+		Files.write(file, SOURCE.getBytes(StandardCharsets.UTF_8));
+
+		StringBuilder out = new StringBuilder();
+		LuaJSToLua.convert(file, StandardCharsets.UTF_8, out);
+		Assertions.assertEquals(LuaJSToLua.convert(SOURCE), out.toString());
+
+		Files.delete(file);
+	}
+
+	@Test
+	void testOutputStream() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LuaJSToLua.convert(CharStreams.fromString(SOURCE), out);
+		Assertions.assertEquals(LuaJSToLua.convert(SOURCE), new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testChannel() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LuaJSToLua.convert(CharStreams.fromString(SOURCE), Channels.newChannel(out));
+		Assertions.assertEquals(LuaJSToLua.convert(SOURCE), new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testSourceMap() throws IOException {
+		StringBuilder out = new StringBuilder();
+		SourceMap map = LuaJSToLua.convertWithSourceMap(CharStreams.fromString(SOURCE), out, ConversionOptions.DEFAULT);
+		Assertions.assertEquals(LuaJSToLua.convert(SOURCE), out.toString());
+
+		// "error" is converted from "throw", "tostring" is added to the left side of ".."
+		Assertions.assertEquals("original 4:0 -> 4:4", String.valueOf(map.find(4, 0)));
+		Assertions.assertEquals("synthetic 4:6 -> 4:10", String.valueOf(map.find(4, 8)));
+		Assertions.assertEquals("original 4:15 -> 4:10", String.valueOf(map.find(4, 15)));
+		// The pcall wrapper is mapped to "try"
+		Assertions.assertEquals("synthetic 3:0 -> 3:0", String.valueOf(map.find(3, 10)));
+		Assertions.assertNull(map.find(2, 0));
+
+		StringBuilder written = new StringBuilder();
+		map.write(written);
+		SourceMap read = SourceMap.read(new StringReader(written.toString()));
+		Assertions.assertEquals(map.getMappings().toString(), read.getMappings().toString());
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> SourceMap.read(new StringReader("original 1 2 3\n")));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> SourceMap.read(new StringReader("original 1 2 1 0\noriginal 1 1 1 0\n")));
+	}
+
+}
@@ -1,5 +1,6 @@
 package me.saharnooby.luajssyntax.util;
 
+import org.antlr.v4.runtime.CharStreams;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -20,4 +21,18 @@ class HashUtilTest {
 		Assertions.assertEquals("00411460f7c92d2124a67ea0f4cb5f85", HashUtil.md5("363"));
 	}
 
-}
\ No newline at end of file
+	@Test
+	void testCharStream() {
+		for (String s : new String[]{"", "md5", "let x = 'привет' // \uD83D\uDE00", "unpaired \uD800 surrogate"}) {
+			Assertions.assertEquals(HashUtil.md5(s), HashUtil.md5(CharStreams.fromString(s)));
+		}
+	}
+
+	@Test
+	void testFnv1a32() {
+		Assertions.assertEquals("811c9dc5", HashUtil.fnv1a32(CharStreams.fromString("")));
+		Assertions.assertEquals("e40c292c", HashUtil.fnv1a32(CharStreams.fromString("a")));
+		Assertions.assertEquals("bf9cf968", HashUtil.fnv1a32(CharStreams.fromString("foobar")));
+	}
+
+}
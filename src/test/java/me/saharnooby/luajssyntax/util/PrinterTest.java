@@ -0,0 +1,154 @@
+package me.saharnooby.luajssyntax.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+/**
+ * @author saharNooby
+ * @since 20:05 18.10.2026
+ */
+class PrinterTest {
+
+	@Test
+	void testLines() {
+		StringBuilder out = new StringBuilder();
+		Printer printer = new Printer(out);
+
+		printer.print("a");
+		printer.setExpectedLine(4);
+		printer.print('b');
+		printer.setExpectedLine(2);
+		printer.println("c");
+		printer.print("d");
+		printer.flush();
+
+		Assertions.assertEquals("a\n\n\nbc\nd", out.toString());
+	}
+
+	@Test
+	void testMinify() {
+		StringBuilder out = new StringBuilder();
+		Printer printer = new Printer(out, true);
+
+		printer.setExpectedLine(2);
+		printer.print("local a = 1 .. 2; ");
+		printer.print("b = a .. - -a; s = ");
+		printer.printLiteral("'x; y'");
+		printer.print("; ");
+		printer.setExpectedLine(5);
+		printer.print("; (f)(); ");
+		printer.print("c = x[ [=[s]=]]");
+		printer.flush();
+
+		Assertions.assertEquals("local a=1 ..2 b=a..- -a s='x; y';\n(f)()c=x[ [=[s]=]]", out.toString());
+		Assertions.assertArrayEquals(new int[] {2, 5}, printer.getSourceLines());
+	}
+
+	@Test
+	void testMappings() {
+		Assertions.assertArrayEquals(new int[] {
+				1, 0, 1, 0, 1,
+				1, 6, 1, 4, 0,
+				1, 8, 1, 4, 1,
+				2, 0, 2, 2, 0,
+				2, 1, 2, 2, 1,
+				2, 3, 3, 0, 1
+		}, printMappings(false, "local x = \nf( end"));
+
+		Assertions.assertArrayEquals(new int[] {
+				1, 0, 1, 0, 1,
+				1, 6, 1, 4, 0,
+				1, 7, 1, 4, 1,
+				2, 0, 2, 2, 0,
+				2, 1, 2, 2, 1,
+				2, 2, 3, 0, 1
+		}, printMappings(true, "local x=\nf(end"));
+
+		Assertions.assertThrows(IllegalStateException.class, () -> new Printer(new StringBuilder()).getMappings());
+	}
+
+	private static int[] printMappings(boolean minify, String expected) {
+		StringBuilder out = new StringBuilder();
+		Printer printer = new Printer(out, minify);
+
+		printer.recordMappings();
+		printer.print("local ");
+		printer.setSourcePosition(1, 4);
+		printer.print("x");
+		printer.print(" = ");
+		printer.setSourcePosition(2, 2);
+		printer.print("f");
+		printer.print('(');
+		printer.setSyntheticPosition(3, 0);
+		printer.print(" end");
+		printer.flush();
+
+		Assertions.assertEquals(expected, out.toString());
+
+		return printer.getMappings();
+	}
+
+	@Test
+	void testInsertAtStart() {
+		StringBuilder out = new StringBuilder();
+		Printer printer = new Printer(out);
+
+		printer.recordMappings();
+		printer.holdOutput();
+		printer.setSourcePosition(1, 0);
+		printer.print("a");
+		printer.setSourcePosition(2, 0);
+		printer.print("b");
+
+		// Held code is not flushed when the buffer is full
+		printer.print(new String(new char[10000]).replace('\0', 'x'));
+		Assertions.assertEquals(0, out.length());
+
+		printer.insertAtStart("local f = g; ");
+		printer.flush();
+
+		Assertions.assertTrue(out.toString().startsWith("local f = g; a\nbxx"));
+		Assertions.assertArrayEquals(new int[] {
+				1, 0, 1, 0, 1,
+				1, 13, 1, 0, 0,
+				2, 0, 2, 0, 0,
+				2, 1, 2, 0, 1
+		}, printer.getMappings());
+
+		Assertions.assertThrows(IllegalStateException.class, printer::holdOutput);
+		Assertions.assertThrows(IllegalStateException.class, () -> printer.insertAtStart(""));
+	}
+
+	@Test
+	void testLargeOutput() {
+		StringWriter out = new StringWriter();
+		Printer printer = new Printer(out);
+
+		StringBuilder expected = new StringBuilder();
+
+		String large = new String(new char[20000]).replace('\0', 'x');
+
+		for (int i = 0; i < 1000; i++) {
+			printer.print("token" + i);
+			printer.print(' ');
+			expected.append("token").append(i).append(' ');
+		}
+
+		printer.print(large);
+		expected.append(large);
+
+		printer.setExpectedLine(10001);
+		printer.print(';');
+		expected.append(new String(new char[10000]).replace('\0', '\n')).append(';');
+
+		// Nothing must be lost when the buffer is flushed when full
+		Assertions.assertTrue(out.getBuffer().length() > 0);
+
+		printer.flush();
+
+		Assertions.assertEquals(expected.toString(), out.toString());
+	}
+
+}